@@ -0,0 +1,161 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.JoinPlan;
+import com.upperlink.billerservice.repository.predicate.OrderBy;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Runs {@link GenericDaoImpl} queries off the calling thread, so that independent queries for the same request
+ * run concurrently. Each call runs in its own read-only transaction, and so its own session, on virtual threads
+ * when the JVM has them and on a fixed pool otherwise; at most {@code maxConcurrency} run at once, which should
+ * stay below the connection pool size.
+ * <p>
+ * A call that does not finish within its timeout completes with a {@link TimeoutException}; its transaction
+ * has the same timeout, which Hibernate passes on as the JDBC statement timeout. Cancelling or timing out a
+ * future interrupts the thread running it. Objects returned are detached.
+ */
+public class AsyncGenericDao implements AutoCloseable {
+    private static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+
+    private final GenericDaoImpl dao;
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final ScheduledExecutorService timer;
+    private long defaultTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+
+    public AsyncGenericDao(GenericDaoImpl dao, PlatformTransactionManager transactionManager, int maxConcurrency) {
+        this.dao = dao;
+        this.transactionManager = transactionManager;
+        this.executor = newExecutor(maxConcurrency);
+        this.permits = new Semaphore(maxConcurrency);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "async-dao-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public long getDefaultTimeoutMillis() {
+        return defaultTimeoutMillis;
+    }
+
+    public void setDefaultTimeoutMillis(long defaultTimeoutMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    public <R> CompletableFuture<R> submit(Function<GenericDaoImpl, R> query) {
+        return submit(query, defaultTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs {@code query} against the DAO in a new read-only transaction. A call still waiting for a permit when
+     * it times out or is cancelled gives up waiting and never runs.
+     */
+    public <R> CompletableFuture<R> submit(Function<GenericDaoImpl, R> query, long timeout, TimeUnit unit) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        template.setTimeout((int) Math.max(1, (unit.toMillis(timeout) + 999) / 1000));
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            if (result.isDone()) {
+                permits.release();
+                return;
+            }
+            try {
+                result.complete(template.execute(status -> query.apply(dao)));
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                permits.release();
+            }
+        });
+        ScheduledFuture<?> timeoutTask = timer.schedule(() -> {
+            result.completeExceptionally(new TimeoutException("Query did not finish within " + timeout + " " + unit));
+        }, timeout, unit);
+        result.whenComplete((value, ex) -> {
+            timeoutTask.cancel(false);
+            if (ex != null) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    public <T> CompletableFuture<List<T>> loadObjectsUsingPredicateBuilder(PredicateBuilder predicateBuilder,
+                                                                          Class<T> clazz, List<OrderBy> orderBy) {
+        return submit(dao -> dao.loadObjectsUsingPredicateBuilder(predicateBuilder, clazz, orderBy));
+    }
+
+    public CompletableFuture<Long> getTotalNoOfModelObject(Class<?> clazz, PredicateBuilder predicateBuilder) {
+        return submit(dao -> dao.getTotalNoOfModelObject(clazz, predicateBuilder));
+    }
+
+    public <T, X extends Number> CompletableFuture<X> sumFieldUsingPredicateBuilder(Class<T> rootClass,
+                                                                                    PredicateBuilder predicateBuilder,
+                                                                                    Class<X> sumClass, String sumField,
+                                                                                    List<String> groupByFields) {
+        return submit(dao -> dao.sumFieldUsingPredicateBuilder(rootClass, predicateBuilder, sumClass, sumField,
+                groupByFields, new JoinPlan()));
+    }
+
+    /**
+     * Loads {@code maxResults} objects from {@code firstResult} and counts all matching objects, as two queries
+     * running at the same time.
+     */
+    public <T> CompletableFuture<CountedPage<T>> loadPageWithCount(PredicateBuilder predicateBuilder, Class<T> clazz,
+                                                                  List<OrderBy> orderBy, int firstResult,
+                                                                  int maxResults) {
+        CompletableFuture<List<T>> content = submit(dao -> dao.getTypedQueryFromBuilder(predicateBuilder, clazz, orderBy)
+                .setFirstResult(firstResult).setMaxResults(maxResults).getResultList());
+        CompletableFuture<Long> total = getTotalNoOfModelObject(clazz, predicateBuilder);
+        CompletableFuture<CountedPage<T>> page = content.thenCombine(total, CountedPage::new);
+        page.whenComplete((value, ex) -> {
+            if (ex != null) {
+                content.cancel(true);
+                total.cancel(true);
+            }
+        });
+        return page;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newFixedThreadPool(maxConcurrency);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.upperlink.billerservice.repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Settings for {@link BulkWriter}.
+ */
+public class BulkWriteOptions {
+
+    public enum Mode {
+        INSERT, UPDATE
+    }
+
+    public enum FailurePolicy {
+        /**
+         * Roll back the failed batch, report it and keep writing the others.
+         */
+        CONTINUE,
+        /**
+         * Roll back the failed batch and stop submitting new ones. Batches already committed stay committed.
+         */
+        ABORT
+    }
+
+    private Mode mode = Mode.INSERT;
+    private int jdbcBatchSize = 100;
+    private int commitSize = 5000;
+    private int threads = 1;
+    private boolean orderStatements = true;
+    private FailurePolicy failurePolicy = FailurePolicy.CONTINUE;
+    private Consumer<BulkWriteReport.FailedBatch> failureHandler;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public BulkWriteOptions setMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public int getJdbcBatchSize() {
+        return jdbcBatchSize;
+    }
+
+    /**
+     * Statements sent per JDBC batch.
+     */
+    public BulkWriteOptions setJdbcBatchSize(int jdbcBatchSize) {
+        this.jdbcBatchSize = jdbcBatchSize;
+        return this;
+    }
+
+    public int getCommitSize() {
+        return commitSize;
+    }
+
+    /**
+     * Rows written per transaction; this is the unit that is retried or reported on failure.
+     */
+    public BulkWriteOptions setCommitSize(int commitSize) {
+        this.commitSize = commitSize;
+        return this;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Writer threads, each with its own session and transaction.
+     */
+    public BulkWriteOptions setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public boolean isOrderStatements() {
+        return orderStatements;
+    }
+
+    /**
+     * Groups each batch by entity class, in order of first appearance, so consecutive statements share a JDBC
+     * batch. Disable when a batch mixes classes whose foreign keys require the input order.
+     */
+    public BulkWriteOptions setOrderStatements(boolean orderStatements) {
+        this.orderStatements = orderStatements;
+        return this;
+    }
+
+    public FailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    public BulkWriteOptions setFailurePolicy(FailurePolicy failurePolicy) {
+        this.failurePolicy = failurePolicy;
+        return this;
+    }
+
+    public Consumer<BulkWriteReport.FailedBatch> getFailureHandler() {
+        return failureHandler;
+    }
+
+    /**
+     * Called on the writer thread with every failed batch, e.g. to park its rows for a retry.
+     */
+    public BulkWriteOptions setFailureHandler(Consumer<BulkWriteReport.FailedBatch> failureHandler) {
+        this.failureHandler = failureHandler;
+        return this;
+    }
+}
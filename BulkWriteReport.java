@@ -0,0 +1,104 @@
+package com.upperlink.billerservice.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link BulkWriter} run.
+ */
+public class BulkWriteReport {
+    private final long rowsWritten;
+    private final long rowsFailed;
+    private final long elapsedNanos;
+    private final long[] batchNanos;
+    private final List<FailedBatch> failedBatches;
+
+    BulkWriteReport(long rowsWritten, long rowsFailed, long elapsedNanos, long[] batchNanos,
+                    List<FailedBatch> failedBatches) {
+        this.rowsWritten = rowsWritten;
+        this.rowsFailed = rowsFailed;
+        this.elapsedNanos = elapsedNanos;
+        this.batchNanos = batchNanos.clone();
+        Arrays.sort(this.batchNanos);
+        this.failedBatches = Collections.unmodifiableList(new ArrayList<>(failedBatches));
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsWritten * 1e9 / elapsedNanos;
+    }
+
+    public int getBatchCount() {
+        return batchNanos.length;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the latency of a batch, from opening its session to commit, at the given percentile
+     */
+    public double getBatchLatencyMillis(double percentile) {
+        if (batchNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * batchNanos.length) - 1;
+        return batchNanos[Math.max(0, Math.min(index, batchNanos.length - 1))] / 1e6;
+    }
+
+    public List<FailedBatch> getFailedBatches() {
+        return failedBatches;
+    }
+
+    public boolean isSuccessful() {
+        return failedBatches.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows written, %d failed in %d batches, %.0f rows/s, batch p50 %.1f ms, p99 %.1f ms",
+                rowsWritten, rowsFailed, batchNanos.length, getRowsPerSecond(), getBatchLatencyMillis(50),
+                getBatchLatencyMillis(99));
+    }
+
+    /**
+     * A batch that was rolled back, with its rows in input order.
+     */
+    public static class FailedBatch {
+        private final long firstRow;
+        private final List<?> rows;
+        private final Exception exception;
+
+        FailedBatch(long firstRow, List<?> rows, Exception exception) {
+            this.firstRow = firstRow;
+            this.rows = rows;
+            this.exception = exception;
+        }
+
+        /**
+         * Position of the first row of the batch in the input.
+         */
+        public long getFirstRow() {
+            return firstRow;
+        }
+
+        public List<?> getRows() {
+            return rows;
+        }
+
+        public Exception getException() {
+            return exception;
+        }
+    }
+}
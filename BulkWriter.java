@@ -0,0 +1,155 @@
+package com.upperlink.billerservice.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Writes large volumes of entities through {@link StatelessSession}s: no persistence context, dirty checking,
+ * cascades or second-level cache, one transaction per {@link BulkWriteOptions#getCommitSize()} rows, and
+ * optionally several writer threads. Entities must be complete on their own, as they would be for a plain
+ * JDBC insert or update.
+ * <p>
+ * The input is read on the calling thread and handed to writers one batch at a time; at most two batches per
+ * writer are held in memory, so a {@link Stream} input is written in bounded memory.
+ */
+public class BulkWriter {
+    private final SessionFactory sessionFactory;
+
+    public BulkWriter(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public BulkWriteReport write(List<?> entities, BulkWriteOptions options) {
+        return write(entities.iterator(), options);
+    }
+
+    public BulkWriteReport write(Stream<?> entities, BulkWriteOptions options) {
+        return write(entities.iterator(), options);
+    }
+
+    public BulkWriteReport write(Iterator<?> entities, BulkWriteOptions options) {
+        long start = System.nanoTime();
+        Run run = new Run(options);
+        ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+        Semaphore pending = new Semaphore(options.getThreads() * 2);
+        try {
+            long position = 0;
+            while (entities.hasNext() && !run.aborted.get()) {
+                List<Object> batch = new ArrayList<>(options.getCommitSize());
+                while (entities.hasNext() && batch.size() < options.getCommitSize()) {
+                    batch.add(entities.next());
+                }
+                long firstRow = position;
+                position += batch.size();
+                pending.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        run.write(firstRow, batch);
+                    } finally {
+                        pending.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        long[] batchNanos = new long[run.batchNanos.size()];
+        int i = 0;
+        for (Long nanos: run.batchNanos) {
+            batchNanos[i++] = nanos;
+        }
+        return new BulkWriteReport(run.rowsWritten.get(), run.rowsFailed.get(), System.nanoTime() - start,
+                batchNanos, new ArrayList<>(run.failedBatches));
+    }
+
+    private class Run {
+        final BulkWriteOptions options;
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final AtomicLong rowsWritten = new AtomicLong();
+        final AtomicLong rowsFailed = new AtomicLong();
+        final ConcurrentLinkedQueue<Long> batchNanos = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<BulkWriteReport.FailedBatch> failedBatches = new ConcurrentLinkedQueue<>();
+
+        Run(BulkWriteOptions options) {
+            this.options = options;
+        }
+
+        void write(long firstRow, List<Object> batch) {
+            if (aborted.get()) {
+                return;
+            }
+            long start = System.nanoTime();
+            StatelessSession session = sessionFactory.openStatelessSession();
+            Transaction transaction = null;
+            try {
+                session.setJdbcBatchSize(options.getJdbcBatchSize());
+                transaction = session.beginTransaction();
+                for (Object entity: options.isOrderStatements() ? ordered(batch) : batch) {
+                    if (options.getMode() == BulkWriteOptions.Mode.INSERT) {
+                        session.insert(entity);
+                    } else {
+                        session.update(entity);
+                    }
+                }
+                transaction.commit();
+                rowsWritten.addAndGet(batch.size());
+            } catch (Exception ex) {
+                if (transaction != null && transaction.isActive()) {
+                    try {
+                        transaction.rollback();
+                    } catch (RuntimeException rollbackException) {
+                        ex.addSuppressed(rollbackException);
+                    }
+                }
+                rowsFailed.addAndGet(batch.size());
+                BulkWriteReport.FailedBatch failedBatch = new BulkWriteReport.FailedBatch(firstRow, batch, ex);
+                failedBatches.add(failedBatch);
+                if (options.getFailurePolicy() == BulkWriteOptions.FailurePolicy.ABORT) {
+                    aborted.set(true);
+                }
+                if (options.getFailureHandler() != null) {
+                    options.getFailureHandler().accept(failedBatch);
+                }
+            } finally {
+                session.close();
+                batchNanos.add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static List<Object> ordered(List<Object> batch) {
+        Map<Class<?>, List<Object>> byClass = new LinkedHashMap<>();
+        for (Object entity: batch) {
+            byClass.computeIfAbsent(entity.getClass(), c -> new ArrayList<>()).add(entity);
+        }
+        if (byClass.size() == 1) {
+            return batch;
+        }
+        List<Object> ordered = new ArrayList<>(batch.size());
+        for (List<Object> entities: byClass.values()) {
+            ordered.addAll(entities);
+        }
+        return ordered;
+    }
+}
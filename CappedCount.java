@@ -0,0 +1,29 @@
+package com.upperlink.billerservice.repository;
+
+/**
+ * Result of a count that stopped reading after {@code limit + 1} rows.
+ */
+public class CappedCount {
+    private final long count;
+    private final boolean more;
+
+    public CappedCount(long count, boolean more) {
+        this.count = count;
+        this.more = more;
+    }
+
+    public static CappedCount of(int rowsRead, int limit) {
+        return new CappedCount(Math.min(rowsRead, limit), rowsRead > limit);
+    }
+
+    /**
+     * The exact count when {@link #hasMore()} is false, otherwise the limit.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public boolean hasMore() {
+        return more;
+    }
+}
@@ -0,0 +1,16 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.hibernate.Session;
+
+/**
+ * Estimates row counts from database statistics, for dashboards that do not need exact numbers.
+ */
+public interface CountEstimator {
+
+    /**
+     * @return the estimated number of matching rows, or null if no estimate is available and an exact count
+     * should be run instead
+     */
+    Long estimate(Session session, Class<?> clazz, PredicateBuilder predicateBuilder);
+}
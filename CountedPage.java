@@ -0,0 +1,24 @@
+package com.upperlink.billerservice.repository;
+
+import java.util.List;
+
+/**
+ * A page of results with the total number of matching objects, from {@link AsyncGenericDao#loadPageWithCount}.
+ */
+public class CountedPage<T> {
+    private final List<T> content;
+    private final long total;
+
+    public CountedPage(List<T> content, long total) {
+        this.content = content;
+        this.total = total;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
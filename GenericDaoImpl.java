@@ -1,49 +1,255 @@
 package com.upperlink.billerservice.repository;
 
+import com.upperlink.billerservice.repository.predicate.Aggregate;
+import com.upperlink.billerservice.repository.predicate.CaseFoldingPolicy;
+import com.upperlink.billerservice.repository.predicate.CompiledQuery;
 import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.FieldPathRegistry;
+import com.upperlink.billerservice.repository.predicate.FilterParser;
+import com.upperlink.billerservice.repository.predicate.InLists;
+import com.upperlink.billerservice.repository.predicate.JavaPredicateCompiler;
+import com.upperlink.billerservice.repository.predicate.JoinPlan;
+import com.upperlink.billerservice.repository.predicate.JoinRegistry;
 import com.upperlink.billerservice.repository.predicate.OrderBy;
 import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import com.upperlink.billerservice.repository.predicate.PredicateNormalizer;
+import com.upperlink.billerservice.repository.predicate.QueryShape;
+import com.upperlink.billerservice.repository.predicate.Values;
+import org.hibernate.CacheMode;
+import org.hibernate.Hibernate;
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
-import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.QueryHints;
 import org.hibernate.criterion.Projections;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
 import org.hibernate.query.criteria.internal.OrderImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.NoResultException;
+import javax.persistence.NonUniqueResultException;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
+import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 @Repository
 @Transactional
 public class GenericDaoImpl {
 
+    private static final int DEFAULT_QUERY_SHAPE_CACHE_SIZE = 512;
+
+    private static final int DEFAULT_FILTER_CACHE_SIZE = 1024;
+
     protected SessionFactory sessionFactory;
 
+    private final QueryShapeCache queryShapeCache = new QueryShapeCache(DEFAULT_QUERY_SHAPE_CACHE_SIZE);
+
+    private CountEstimator countEstimator;
+
+    private QueryResultCache resultCache;
+
+    private int batchFlushInterval = 20;
+
+    private InListOptions inListOptions = new InListOptions();
+
+    private CaseFoldingPolicy caseFoldingPolicy = new CaseFoldingPolicy();
+
+    private final FieldPathRegistry fieldPaths;
+
+    private FilterParser filterParser;
+
+    private ReplicaRouting replicaRouting;
+
+    private final ThreadLocal<Boolean> primaryReads = new ThreadLocal<>();
+
+    private final List<QueryMetrics> queryMetrics = new CopyOnWriteArrayList<>();
 
     @Autowired
     public GenericDaoImpl(final SessionFactory sessionFactory) {
         this.sessionFactory = sessionFactory;
+        this.fieldPaths = new FieldPathRegistry(sessionFactory.getMetamodel());
+        this.filterParser = new FilterParser(fieldPaths, DEFAULT_FILTER_CACHE_SIZE);
     }
 
     public SessionFactory getSessionFactory() {
         return sessionFactory;
     }
 
+    public QueryShapeCache getQueryShapeCache() {
+        return queryShapeCache;
+    }
+
+    public QueryResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public int getBatchFlushInterval() {
+        return batchFlushInterval;
+    }
+
+    /**
+     * Should match {@code hibernate.jdbc.batch_size} so that each flush sends whole JDBC batches.
+     */
+    public void setBatchFlushInterval(int batchFlushInterval) {
+        this.batchFlushInterval = batchFlushInterval;
+    }
+
+    public InListOptions getInListOptions() {
+        return inListOptions;
+    }
+
+    public void setInListOptions(InListOptions inListOptions) {
+        this.inListOptions = inListOptions;
+    }
+
+    public void addQueryMetrics(QueryMetrics metrics) {
+        queryMetrics.add(metrics);
+    }
+
+    @Autowired(required = false)
+    public void setQueryMetrics(List<QueryMetrics> metrics) {
+        queryMetrics.clear();
+        queryMetrics.addAll(metrics);
+    }
+
+    public FieldPathRegistry getFieldPathRegistry() {
+        return fieldPaths;
+    }
+
+    /**
+     * Checks {@code fields} of {@code clazz} against the metamodel now, e.g. at startup, rather than on the first
+     * query using them.
+     */
+    public void registerFieldPaths(Class<?> clazz, String... fields) {
+        fieldPaths.register(clazz, fields);
+    }
+
+    public FilterParser getFilterParser() {
+        return filterParser;
+    }
+
+    public void setFilterParser(FilterParser filterParser) {
+        this.filterParser = filterParser;
+    }
+
+    /**
+     * Parses a filter expression such as {@code amount>=100 AND status IN (PAID, SETTLED)} for {@code clazz},
+     * converting values to the attribute types; see {@link FilterParser}.
+     *
+     * @throws IllegalArgumentException for a syntax error, unknown field or value of the wrong type
+     */
+    public PredicateBuilder parseFilter(Class<?> clazz, String filter) {
+        return filterParser.parse(clazz, filter);
+    }
+
+    public ReplicaRouting getReplicaRouting() {
+        return replicaRouting;
+    }
+
+    /**
+     * Sends read-only queries to replicas; see {@link #getReadSessionFactory()}.
+     */
+    @Autowired(required = false)
+    public void setReplicaRouting(ReplicaRouting replicaRouting) {
+        this.replicaRouting = replicaRouting;
+    }
+
+    /**
+     * Runs {@code call} with every read on the primary, e.g. to read rows just committed by another transaction
+     * before the replicas have caught up.
+     */
+    public <R> R readFromPrimary(Supplier<R> call) {
+        Boolean previous = primaryReads.get();
+        primaryReads.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                primaryReads.remove();
+            }
+        }
+    }
+
+    /**
+     * The session factory for read-only queries: a replica from {@link #getReplicaRouting()}, unless none is
+     * configured, the call runs in {@link #readFromPrimary}, or it runs inside a read-write transaction of the
+     * caller, which may have written rows the replicas do not have yet. A read called outside a transaction
+     * still starts its own on the primary, as every DAO method does, but reads from a replica since that
+     * transaction cannot have written anything.
+     */
+    protected SessionFactory getReadSessionFactory() {
+        return readsFromReplica() ? replicaRouting.current() : this.sessionFactory;
+    }
+
+    private boolean readsFromReplica() {
+        return replicaRouting != null && primaryReads.get() == null
+                && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ReplicaRouting.isStartedBy(getClass()));
+    }
+
+    /**
+     * A replica session is never flushed, since a transaction on the primary commits it without a JDBC
+     * transaction of its own.
+     */
+    private Session getReadSession() {
+        SessionFactory factory = getReadSessionFactory();
+        Session session = factory.getCurrentSession();
+        if (factory != this.sessionFactory) {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+        }
+        return session;
+    }
+
+    public CaseFoldingPolicy getCaseFoldingPolicy() {
+        return caseFoldingPolicy;
+    }
+
+    @Autowired(required = false)
+    public void setCaseFoldingPolicy(CaseFoldingPolicy caseFoldingPolicy) {
+        this.caseFoldingPolicy = caseFoldingPolicy;
+    }
+
+    @Autowired(required = false)
+    public void setResultCache(QueryResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    @Autowired(required = false)
+    public void setCountEstimator(CountEstimator countEstimator) {
+        this.countEstimator = countEstimator;
+    }
+
     public <T> List<T> loadAllObjectsUsingRestrictions(Class<T> pObjectClass, final List<CustomPredicate> predicates, String order) {
         CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
         CriteriaQuery<T> query = builder.createQuery(pObjectClass);
         Root<T> root = query.from(pObjectClass);
-        TypedQuery<T> typedQuery = getTypedQueryFromPredicates(builder, query, root, predicates);
 
         if(order != null)
             query.orderBy(builder.asc(root.get(order))); //Assuming 'order' is on the root object
 
+        TypedQuery<T> typedQuery = getTypedQueryFromPredicates(builder, query, root, predicates);
         try {
             return typedQuery.getResultList();
         } catch (NoResultException ex) {
@@ -53,42 +259,184 @@ public class GenericDaoImpl {
     }
 
     public <T> int countObjectsUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz) {
-        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
-        CriteriaQuery<Long> query = builder.createQuery(Long.class);
-        Root<T> root = query.from(clazz);
-        Predicate where = builder.conjunction();
-        where = predicateBuilder.build(builder, root, where);
-        query.where(where);
-        query.select(PredicateBuilder.getPath("id", root, Long.class));
+        return getTotalNoOfModelObject(clazz, predicateBuilder).intValue();
+    }
 
-        TypedQuery<Long> typedQuery = this.sessionFactory.getCurrentSession().createQuery(query);
-        return typedQuery.getResultList().size();
+    /**
+     * Counts matching rows but stops reading after {@code limit + 1}, for screens that only show
+     * "more than {@code limit} results".
+     *
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    public <T> CappedCount countObjectsUpTo(PredicateBuilder predicateBuilder, Class<T> clazz, int limit) {
+        int rows = rowsToRead(limit);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return new CappedCount(0, false);
+        }
+        TypedQuery<Integer> typedQuery = getConstantQueryFromBuilder(predicateBuilder, clazz);
+        return CappedCount.of(typedQuery.setMaxResults(rows).getResultList().size(), limit);
     }
 
-    public <T> T loadObjectUsingRestriction(Class<T> pObjectClass, List<CustomPredicate> predicates) {
+    /**
+     * Returns {@code limit + 1}, the rows a capped count or keyset page reads, without overflowing.
+     */
+    private static int rowsToRead(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (long) limit + 1);
+    }
+
+    /**
+     * Builds a query selecting the constant 1 for every matching row, so rows can be counted or found without
+     * reading any column.
+     */
+    private TypedQuery<Integer> getConstantQueryFromBuilder(PredicateBuilder predicateBuilder, Class<?> clazz) {
+        QueryShape shape = QueryShape.of(clazz, predicateBuilder, Collections.<OrderBy>emptyList())
+                .withSelection("constant");
+        CompiledQuery<Integer> compiledQuery = queryShapeCache.get(shape);
+        if (compiledQuery == null) {
+            CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+            CriteriaQuery<Integer> query = builder.createQuery(Integer.class);
+            Root<?> root = query.from(clazz);
+            JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), false, fieldPaths).forQuery(query);
+            List<ParameterExpression<?>> parameters = new ArrayList<>();
+            query.select(builder.literal(1));
+            query.where(predicateBuilder.build(builder, joins, builder.conjunction(), parameters));
+            compiledQuery = new CompiledQuery<>(query, parameters);
+            queryShapeCache.put(shape, compiledQuery);
+        }
+        TypedQuery<Integer> typedQuery = getReadSession().createQuery(compiledQuery.getQuery());
+        return compiledQuery.bind(typedQuery, predicateBuilder);
+    }
+
+    /**
+     * Returns true if any object matches, reading at most one row and no columns.
+     */
+    public <T> boolean exists(Class<T> clazz, PredicateBuilder predicateBuilder) {
+        QueryTiming timing = startTiming("exists", clazz);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return false;
+        }
+        TypedQuery<Integer> typedQuery = getConstantQueryFromBuilder(predicateBuilder, clazz);
+        if (timing != null) timing.built();
+        int rows = typedQuery.setMaxResults(1).getResultList().size();
+        record(timing, predicateBuilder, rows, 0);
+        return rows > 0;
+    }
+
+    public boolean exists(Class<?> clazz, List<CustomPredicate> predicates) {
         CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
-        CriteriaQuery<T> query = builder.createQuery(pObjectClass);
-        Root<T> root = query.from(pObjectClass);
-        TypedQuery<T> typedQuery = getTypedQueryFromPredicates(builder, query, root, predicates);
-        try {
-            T classInstance = typedQuery.getSingleResult();
-            return classInstance;
-        } catch (NoResultException ex) {
+        CriteriaQuery<Integer> query = builder.createQuery(Integer.class);
+        Root<?> root = query.from(clazz);
+        query.select(builder.literal(1));
+        TypedQuery<Integer> typedQuery = getTypedQueryFromPredicatesForCount(builder, query, root, clazz, predicates);
+        return !typedQuery.setMaxResults(1).getResultList().isEmpty();
+    }
+
+    /**
+     * Returns the first matching object in {@code orderBy} order, or any matching object without one, reading at
+     * most one row; null if none matches.
+     */
+    public <T> T findFirst(Class<T> clazz, PredicateBuilder predicateBuilder, OrderBy... orderBy) {
+        QueryTiming timing = startTiming("findFirst", clazz);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
             return null;
         }
+        TypedQuery<T> typedQuery = getTypedQueryFromBuilder(getReadSession(), predicateBuilder,
+                clazz, Arrays.asList(orderBy), new JoinPlan());
+        if (timing != null) timing.built();
+        List<T> list = typedQuery.setMaxResults(1).getResultList();
+        record(timing, predicateBuilder, list.size(), list.size());
+        return list.isEmpty() ? null : list.get(0);
     }
 
-    public <T> T loadObjectUsingRestrictionAllowNull(Class<T> pObjectClass, List<CustomPredicate> predicates) {
+    public <T> T findFirst(Class<T> clazz, List<CustomPredicate> predicates, OrderBy... orderBy) {
         CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
-        CriteriaQuery<T> query = builder.createQuery(pObjectClass);
-        Root<T> root = query.from(pObjectClass);
-        TypedQuery<T> typedQuery = getTypedQueryFromPredicates(builder, query, root, predicates);
-        try {
-            T classInstance = typedQuery.getSingleResult();
-            return classInstance;
-        } catch (NoResultException ex) {
+        CriteriaQuery<T> query = builder.createQuery(clazz);
+        Root<T> root = query.from(clazz);
+        if (orderBy.length > 0) {
+            List<Order> orders = new ArrayList<>();
+            for (OrderBy order: orderBy) {
+                orders.add(order.isAsc() ? new OrderImpl(PredicateBuilder.getPath(order.getField(), root)) :
+                        new OrderImpl(PredicateBuilder.getPath(order.getField(), root), false));
+            }
+            query.orderBy(orders);
+        }
+        List<T> list = getTypedQueryFromPredicates(builder, query, root, predicates).setMaxResults(1).getResultList();
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Returns the only matching object, or null if none matches, reading at most two rows.
+     *
+     * @throws NonUniqueResultException if more than one object matches
+     */
+    public <T> T findUnique(Class<T> clazz, PredicateBuilder predicateBuilder) {
+        QueryTiming timing = startTiming("findUnique", clazz);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
             return null;
         }
+        TypedQuery<T> typedQuery = getTypedQueryFromBuilder(getReadSession(), predicateBuilder,
+                clazz, Collections.<OrderBy>emptyList(), new JoinPlan());
+        if (timing != null) timing.built();
+        T unique = unique(typedQuery);
+        record(timing, predicateBuilder, unique == null ? 0 : 1, unique == null ? 0 : 1);
+        return unique;
+    }
+
+    public <T> T findUnique(Class<T> clazz, List<CustomPredicate> predicates) {
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(clazz);
+        Root<T> root = query.from(clazz);
+        return unique(getTypedQueryFromPredicates(builder, query, root, predicates));
+    }
+
+    private static <T> T unique(TypedQuery<T> typedQuery) {
+        List<T> list = typedQuery.setMaxResults(2).getResultList();
+        if (list.size() > 1) {
+            throw new NonUniqueResultException("Query returned more than one result");
+        }
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    public CappedCount countObjectsUpTo(Class<?> clazz, List<CustomPredicate> predicates, int limit) {
+        int rows = rowsToRead(limit);
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        CriteriaQuery<Integer> query = builder.createQuery(Integer.class);
+        Root<?> root = query.from(clazz);
+        query.select(builder.literal(1));
+        TypedQuery<Integer> typedQuery = getTypedQueryFromPredicatesForCount(builder, query, root, clazz, predicates);
+        return CappedCount.of(typedQuery.setMaxResults(rows).getResultList().size(), limit);
+    }
+
+    /**
+     * Returns the {@link CountEstimator} estimate when one is configured and can answer, otherwise the exact count.
+     */
+    public <T> long estimateObjectsUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz) {
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return 0;
+        }
+        if (countEstimator != null) {
+            Long estimate = countEstimator.estimate(getReadSession(), clazz, predicateBuilder);
+            if (estimate != null) {
+                return estimate;
+            }
+        }
+        return getTotalNoOfModelObject(clazz, predicateBuilder);
+    }
+
+    public <T> T loadObjectUsingRestriction(Class<T> pObjectClass, List<CustomPredicate> predicates) {
+        return findUnique(pObjectClass, predicates);
+    }
+
+    public <T> T loadObjectUsingRestrictionAllowNull(Class<T> pObjectClass, List<CustomPredicate> predicates) {
+        return findUnique(pObjectClass, predicates);
     }
 
     public <T> List<T> loadPaginatedObjects(Class<T> pObjectClass, List<CustomPredicate> predicates, int pStartRowNum, int pEndRowNum,
@@ -97,9 +445,9 @@ public class GenericDaoImpl {
         CriteriaQuery<T> query = builder.createQuery(pObjectClass);
 
         Root<T> root = query.from(pObjectClass);
+        query.orderBy(builder.asc(root.get("id")));
         TypedQuery<T> typedQuery = getTypedQueryFromPredicates(builder, query, root, predicates);
         typedQuery.setFirstResult(pStartRowNum).setMaxResults(pEndRowNum);
-        query.orderBy(builder.asc(root.get("id")));
         try {
             return typedQuery.getResultList();
         } catch (NoResultException ex) {
@@ -107,12 +455,201 @@ public class GenericDaoImpl {
         }
     }
 
+    /**
+     * Loads the page after {@code continuationToken}, or the first page when it is null, by seeking past the
+     * sort values of the previous page instead of skipping rows. {@code id} is appended to {@code orderBy} as a
+     * tiebreaker unless already present; sort fields must not be null.
+     *
+     * @throws IllegalArgumentException if {@code pageSize} is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public <T> KeysetPage<T> loadKeysetPage(PredicateBuilder predicateBuilder, Class<T> clazz, List<OrderBy> orderBy,
+                                            int pageSize, String continuationToken) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return new KeysetPage<>(Collections.<T>emptyList(), null);
+        }
+        List<OrderBy> keyset = KeysetToken.withTiebreaker(orderBy);
+        boolean seek = continuationToken != null;
+        QueryShape shape = QueryShape.of(clazz, predicateBuilder, keyset).withSelection(seek ? "keyset-seek" : "keyset");
+        CompiledQuery<Tuple> compiledQuery = queryShapeCache.get(shape);
+        if (compiledQuery == null) {
+            compiledQuery = compileKeysetQuery(predicateBuilder, clazz, keyset, seek);
+            queryShapeCache.put(shape, compiledQuery);
+        }
+
+        List<Object> seekValues = Collections.emptyList();
+        if (seek) {
+            List<Class<?>> types = new ArrayList<>();
+            List<Selection<?>> selections = compiledQuery.getQuery().getSelection().getCompoundSelectionItems();
+            for (int i = 1; i < selections.size(); i++) {
+                types.add(selections.get(i).getJavaType());
+            }
+            seekValues = KeysetToken.decode(continuationToken, keyset, types);
+        }
+        TypedQuery<Tuple> typedQuery = getReadSession().createQuery(compiledQuery.getQuery());
+        compiledQuery.bind(typedQuery, predicateBuilder, seekValues);
+        List<Tuple> rows = typedQuery.setMaxResults(rowsToRead(pageSize)).getResultList();
+
+        int size = Math.min(rows.size(), pageSize);
+        List<T> content = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            content.add((T) rows.get(i).get(0));
+        }
+        String nextToken = null;
+        if (rows.size() > pageSize) {
+            Object[] lastValues = new Object[keyset.size()];
+            for (int i = 0; i < lastValues.length; i++) {
+                lastValues[i] = rows.get(size - 1).get(i + 1);
+            }
+            nextToken = KeysetToken.encode(keyset, lastValues);
+        }
+        return new KeysetPage<>(content, nextToken);
+    }
+
+    /**
+     * Computes several aggregates per group in one statement. Each row holds the group by fields, under their
+     * paths as aliases, followed by the aggregates under their aliases. {@code having} and {@code orderBy} may
+     * refer to aggregate aliases as well as fields.
+     *
+     * @param having optional predicates on the groups, may be null
+     */
+    public <T> List<Tuple> aggregateUsingPredicateBuilder(Class<T> clazz, PredicateBuilder predicateBuilder,
+                                                          List<String> groupByFields, List<Aggregate> aggregates,
+                                                          PredicateBuilder having, List<OrderBy> orderBy) {
+        QueryTiming timing = startTiming("aggregateUsingPredicateBuilder", clazz);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable() && !groupByFields.isEmpty()) {
+            return Collections.emptyList();
+        }
+        PredicateBuilder havingBuilder = having == null ? new PredicateBuilder() : having;
+        StringBuilder selection = new StringBuilder("aggregate").append(groupByFields).append(aggregates);
+        havingBuilder.appendShape(selection);
+        QueryShape shape = QueryShape.of(clazz, predicateBuilder, orderBy).withSelection(selection.toString());
+        CompiledQuery<Tuple> compiledQuery = queryShapeCache.get(shape);
+        if (compiledQuery == null) {
+            compiledQuery = compileAggregateQuery(clazz, predicateBuilder, groupByFields, aggregates, havingBuilder, orderBy);
+            queryShapeCache.put(shape, compiledQuery);
+        }
+
+        List<Object> havingValues = new ArrayList<>();
+        havingBuilder.collectValues(havingValues);
+        TypedQuery<Tuple> typedQuery = getReadSession().createQuery(compiledQuery.getQuery());
+        compiledQuery.bind(typedQuery, predicateBuilder, havingValues);
+        if (timing != null) timing.built();
+        List<Tuple> rows = typedQuery.getResultList();
+        record(timing, predicateBuilder, rows.size(), 0);
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompiledQuery<Tuple> compileAggregateQuery(Class<T> clazz, PredicateBuilder predicateBuilder,
+                                                           List<String> groupByFields, List<Aggregate> aggregates,
+                                                           PredicateBuilder having, List<OrderBy> orderBy) {
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<T> root = query.from(clazz);
+        JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), false, fieldPaths).forQuery(query);
+        List<ParameterExpression<?>> parameters = new ArrayList<>();
+        query.where(predicateBuilder.build(builder, joins, builder.conjunction(), parameters));
+
+        List<Selection<?>> selections = new ArrayList<>();
+        List<Expression<?>> groups = new ArrayList<>();
+        for (String field: groupByFields) {
+            Path<?> path = joins.getPath(field);
+            groups.add(path);
+            selections.add(path.alias(field));
+        }
+        for (Aggregate aggregate: aggregates) {
+            Expression<?> field = aggregate.getField() == null ? root : joins.getPath(aggregate.getField());
+            Expression<?> expression;
+            switch (aggregate.getFunction()) {
+                case SUM:
+                    expression = builder.sum((Expression<Number>) field);
+                    break;
+                case COUNT:
+                    expression = builder.count(field);
+                    break;
+                case COUNT_DISTINCT:
+                    expression = builder.countDistinct(field);
+                    break;
+                case AVG:
+                    expression = builder.avg((Expression<Number>) field);
+                    break;
+                case MIN:
+                    expression = builder.least((Expression<Comparable>) field);
+                    break;
+                default:
+                    expression = builder.greatest((Expression<Comparable>) field);
+            }
+            joins.alias(aggregate.getAlias(), expression);
+            selections.add(expression.alias(aggregate.getAlias()));
+        }
+        query.multiselect(selections).groupBy(groups);
+        if (!having.isEmpty()) {
+            query.having(having.build(builder, joins, builder.conjunction(), parameters));
+        }
+        if (!orderBy.isEmpty()) {
+            List<Order> orders = new ArrayList<>();
+            for (OrderBy order: orderBy) {
+                orders.add(new OrderImpl(joins.get(order.getField()), order.isAsc()));
+            }
+            query.orderBy(orders);
+        }
+        return new CompiledQuery<>(query, parameters);
+    }
+
+    private <T> CompiledQuery<Tuple> compileKeysetQuery(PredicateBuilder predicateBuilder, Class<T> clazz,
+                                                       List<OrderBy> keyset, boolean seek) {
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<T> root = query.from(clazz);
+        JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), true, fieldPaths).forQuery(query);
+        List<ParameterExpression<?>> parameters = new ArrayList<>();
+        Predicate where = predicateBuilder.build(builder, joins, builder.conjunction(), parameters);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        List<Path<Comparable>> paths = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        selections.add(root);
+        for (OrderBy order: keyset) {
+            Path<Comparable> path = joins.getPath(order.getField());
+            paths.add(path);
+            selections.add(path);
+            orders.add(new OrderImpl(path, order.isAsc()));
+        }
+        if (seek) {
+            List<ParameterExpression<Comparable>> values = new ArrayList<>();
+            for (Path<Comparable> path: paths) {
+                ParameterExpression<Comparable> value =
+                        (ParameterExpression<Comparable>) builder.parameter(Values.wrap(path.getJavaType()));
+                values.add(value);
+                parameters.add(value);
+            }
+            Predicate after = builder.disjunction();
+            for (int i = 0; i < paths.size(); i++) {
+                Predicate term = keyset.get(i).isAsc() ? builder.greaterThan(paths.get(i), values.get(i)) :
+                        builder.lessThan(paths.get(i), values.get(i));
+                for (int j = 0; j < i; j++) {
+                    term = builder.and(builder.equal(paths.get(j), values.get(j)), term);
+                }
+                after = builder.or(after, term);
+            }
+            where = builder.and(where, after);
+        }
+        query.multiselect(selections).where(where).orderBy(orders);
+        return new CompiledQuery<>(query, parameters);
+    }
+
     public Long getTotalPaginatedObjects(Class<?> clazz, List<CustomPredicate> predicates) {
 
         CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
         CriteriaQuery<Long> query = builder.createQuery(Long.class);
-        query.select(builder.count(query.from(clazz)));
         Root<?> root = query.from(clazz);
+        query.select(builder.count(root));
         TypedQuery<Long> typedQuery = getTypedQueryFromPredicatesForCount(builder, query, root, clazz, predicates);
         try {
             return typedQuery.getSingleResult();
@@ -124,63 +661,76 @@ public class GenericDaoImpl {
     @Transactional
     public  void storeObject(Object pObject) {
         this.sessionFactory.getCurrentSession().saveOrUpdate(pObject);
+        invalidateResultCache(Collections.singletonList(pObject));
     }
 
     public <T> List<T> loadObjectsUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz) {
-        TypedQuery<T> typedQuery = getTypedQueryFromBuilder(predicateBuilder, clazz, Collections.EMPTY_LIST);
-        try {
-            return typedQuery.getResultList();
-        } catch (NoResultException ex) {
-            return Collections.EMPTY_LIST;
-        }
+        return loadObjectsUsingPredicateBuilder(predicateBuilder, clazz, Collections.<OrderBy>emptyList());
     }
 
+    /**
+     * Returns a single sum over all matching rows. {@code groupByFields} must be empty; use
+     * {@link #aggregateUsingPredicateBuilder} for one row per group.
+     *
+     * @throws IllegalArgumentException if {@code groupByFields} is not empty
+     */
     public <T, X extends Number> X sumFieldUsingPredicateBuilder(Class<T> rootClass, PredicateBuilder predicateBuilder, Class<X> sumClass, String sumField,
                                                                  List<String> groupByFields) {
+        return sumFieldUsingPredicateBuilder(rootClass, predicateBuilder, sumClass, sumField, groupByFields, new JoinPlan());
+    }
+
+    public <T, X extends Number> X sumFieldUsingPredicateBuilder(Class<T> rootClass, PredicateBuilder predicateBuilder, Class<X> sumClass, String sumField,
+                                                                 List<String> groupByFields, JoinPlan joinPlan) {
+        if (!groupByFields.isEmpty()) {
+            throw new IllegalArgumentException("A single sum cannot be grouped by " + groupByFields
+                    + "; use aggregateUsingPredicateBuilder for one sum per group");
+        }
+        predicateBuilder = normalize(predicateBuilder, rootClass);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return null;
+        }
         CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
         CriteriaQuery<X> query = builder.createQuery(sumClass);
         Root<T> root = query.from(rootClass);
+        JoinRegistry joins = new JoinRegistry(root, joinPlan, false, fieldPaths).forQuery(query);
         Predicate where = builder.conjunction();
-        where = predicateBuilder.build(builder, root, where);
+        where = predicateBuilder.build(builder, joins, where);
         query.where(where);
-        if (!groupByFields.isEmpty()) {
-            List<Expression<?>> expressions = new ArrayList<>();
-            for (String field: groupByFields)
-                expressions.add(PredicateBuilder.getPath(field, root));
-            query.groupBy(expressions);
-        }
-        query.select(builder.sum(PredicateBuilder.getPath(sumField, root, sumClass)));
-        TypedQuery<X> typedQuery = this.sessionFactory.getCurrentSession().createQuery(query);
+        query.select(builder.sum(joins.<X>getPath(sumField)));
+        TypedQuery<X> typedQuery = getReadSession().createQuery(query);
         return typedQuery.getSingleResult();
     }
 
     private <T> TypedQuery<T> getTypedQueryFromPredicates(CriteriaBuilder builder, CriteriaQuery<T> query,
                       Root<T> root, List<CustomPredicate> predicates) {
+        return getTypedQueryFromPredicates(getReadSession(), builder, query, root, predicates);
+    }
+
+    private <T> Query<T> getTypedQueryFromPredicates(Session session, CriteriaBuilder builder, CriteriaQuery<T> query,
+                      Root<T> root, List<CustomPredicate> predicates) {
         query.select(root);
+        JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), true, fieldPaths);
         Predicate where = builder.conjunction();
 
         for(CustomPredicate predicate : predicates){
             if (predicate.getField() != null)
-            where = builder.and(where, builder.equal(PredicateBuilder.getPath(predicate, root), predicate.getValue()));
+            where = builder.and(where, builder.equal(joins.getPath(predicate.getField()), predicate.getValue()));
         }
         query.where(where);
-        TypedQuery<T> typedQuery = this.sessionFactory.getCurrentSession().createQuery(query);
-        return typedQuery;
+        return session.createQuery(query);
     }
 
-    private  TypedQuery<Long> getTypedQueryFromPredicatesForCount(CriteriaBuilder builder, CriteriaQuery<Long> query,
+    private <X> TypedQuery<X> getTypedQueryFromPredicatesForCount(CriteriaBuilder builder, CriteriaQuery<X> query,
                                                           Root<?> root, Class<?> pObjectClass, List<CustomPredicate> predicates) {
         //query.select(root);
+        JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), false, fieldPaths);
         Predicate where = builder.conjunction();
         for(CustomPredicate predicate : predicates){
             if (predicate.getField() != null)
-            where = builder.and(where, builder.equal(PredicateBuilder.getPath(predicate, root), predicate.getValue()));
+            where = builder.and(where, builder.equal(joins.getPath(predicate.getField()), predicate.getValue()));
         }
         query.where(where);
-        TypedQuery<Long> typedQuery = this.sessionFactory.getCurrentSession().createQuery(query);
-        for(CustomPredicate predicate : predicates)
-            typedQuery.setParameter(predicate.getField(),predicate.getValue());
-        return typedQuery;
+        return getReadSession().createQuery(query);
     }
 
     public <T> List<T> loadAllObjectsWithoutRestrictions(Class<T> pObjectClass, String order) {
@@ -189,10 +739,10 @@ public class GenericDaoImpl {
         Root<T> root = query.from(pObjectClass);
         query.select(root);
 
-        TypedQuery<T> typedQuery = this.sessionFactory.getCurrentSession().createQuery(query);
-
         if(order != null)
             query.orderBy(builder.asc(root.get(order))); //Assuming 'order' is on the root object
+
+        TypedQuery<T> typedQuery = getReadSession().createQuery(query);
         try {
             return typedQuery.getResultList();
         } catch (NoResultException ex) {
@@ -200,17 +750,108 @@ public class GenericDaoImpl {
         }
     }
 
-    public <T> List<T> loadObjectsUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz, List<OrderBy> orderBy) {
-        TypedQuery<T> typedQuery = getTypedQueryFromBuilder(predicateBuilder, clazz, orderBy);
+    /**
+     * Streams matching objects from a dedicated read-only session through a forward-only cursor, clearing the
+     * session every {@link StreamOptions#getClearInterval()} rows so memory stays bounded. Objects are detached
+     * once the session is cleared. The stream must be closed, e.g. with try-with-resources, to release the
+     * cursor and session; it also closes itself once exhausted.
+     */
+    public <T> Stream<T> streamObjectsUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz,
+                                                            List<OrderBy> orderBy, StreamOptions options) {
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return Stream.empty();
+        }
+        Session session = openStreamingSession();
         try {
-            return typedQuery.getResultList();
-        } catch (NoResultException ex) {
-            return Collections.EMPTY_LIST;
+            return ScrollingIterator.stream(session,
+                    getTypedQueryFromBuilder(session, predicateBuilder, clazz, orderBy, new JoinPlan()), options);
+        } catch (RuntimeException ex) {
+            ScrollingIterator.closeSession(session);
+            throw ex;
+        }
+    }
+
+    public <T> Stream<T> streamAllObjectsUsingRestrictions(Class<T> pObjectClass, List<CustomPredicate> predicates,
+                                                           String order, StreamOptions options) {
+        Session session = openStreamingSession();
+        try {
+            CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+            CriteriaQuery<T> query = builder.createQuery(pObjectClass);
+            Root<T> root = query.from(pObjectClass);
+            if(order != null)
+                query.orderBy(builder.asc(root.get(order)));
+            return ScrollingIterator.stream(session,
+                    getTypedQueryFromPredicates(session, builder, query, root, predicates), options);
+        } catch (RuntimeException ex) {
+            ScrollingIterator.closeSession(session);
+            throw ex;
         }
     }
 
+    public <T> Stream<T> streamAllObjectsWithoutRestrictions(Class<T> pObjectClass, String order, StreamOptions options) {
+        return streamAllObjectsUsingRestrictions(pObjectClass, Collections.<CustomPredicate>emptyList(), order, options);
+    }
+
+    private Session openStreamingSession() {
+        return openStreamingSession(readsFromReplica() ? replicaRouting.any() : this.sessionFactory);
+    }
+
+    private static Session openStreamingSession(SessionFactory factory) {
+        Session session = factory.openSession();
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        session.setCacheMode(CacheMode.IGNORE);
+        session.beginTransaction();
+        return session;
+    }
+
+    public <T> List<T> loadObjectsUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz, List<OrderBy> orderBy) {
+        QueryTiming timing = startTiming("loadObjectsUsingPredicateBuilder", clazz);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return Collections.emptyList();
+        }
+        List<T> list;
+        if (usesResultCache(clazz)) {
+            list = loadCachedObjects(predicateBuilder, clazz, orderBy, "list");
+        } else {
+            list = listUsingPredicateBuilder(predicateBuilder, clazz, orderBy, new JoinPlan(), timing);
+        }
+        record(timing, predicateBuilder, list.size(), list.size());
+        return list;
+    }
+
+    /**
+     * Loads the matching objects with the associations {@code joinPlan} fetches, each object once; to-many
+     * conditions that should not repeat or filter fetched rows belong in {@link PredicateBuilder#exists}.
+     */
+    public <T> List<T> loadObjectsUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz, List<OrderBy> orderBy,
+                                                        JoinPlan joinPlan) {
+        QueryTiming timing = startTiming("loadObjectsUsingPredicateBuilder", clazz);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return Collections.emptyList();
+        }
+        List<T> list = listUsingPredicateBuilder(predicateBuilder, clazz, orderBy, joinPlan, timing);
+        record(timing, predicateBuilder, list.size(), list.size());
+        return list;
+    }
+
     public <T> T loadSingleObjectUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz) {
-        TypedQuery<T> typedQuery = getTypedQueryFromBuilder(predicateBuilder, clazz, Collections.EMPTY_LIST);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return null;
+        }
+        if (usesResultCache(clazz)) {
+            List<T> list = loadCachedObjects(predicateBuilder, clazz, Collections.<OrderBy>emptyList(), "single");
+            if (list.size() > 1) {
+                throw new NonUniqueResultException("Query returned " + list.size() + " results");
+            }
+            return list.isEmpty() ? null : list.get(0);
+        }
+        TypedQuery<T> typedQuery = getTypedQueryFromBuilder(getReadSession(), predicateBuilder,
+                clazz, Collections.<OrderBy>emptyList(), new JoinPlan());
         try {
             return typedQuery.getSingleResult();
         } catch (NoResultException ex) {
@@ -218,24 +859,445 @@ public class GenericDaoImpl {
         }
     }
 
+    /**
+     * Whether reads of {@code clazz} go through the result cache: only when it is cacheable and read from the
+     * primary, since a replica lagging behind a commit would cache rows from before the write under the
+     * generation the write started.
+     */
+    private boolean usesResultCache(Class<?> clazz) {
+        return resultCache != null && resultCache.isCacheable(clazz) && !readsFromReplica();
+    }
+
+    private <T> List<T> loadCachedObjects(PredicateBuilder predicateBuilder, Class<T> clazz, List<OrderBy> orderBy,
+                                          String selection) {
+        List<Object> values = new ArrayList<>();
+        predicateBuilder.collectValues(values);
+        Object key = QueryResultCache.key(QueryShape.of(clazz, predicateBuilder, orderBy).withSelection(selection), values);
+        long generation = resultCache.generation(clazz);
+        Session session = getReadSession();
+
+        List<Serializable> ids = resultCache.get(key, clazz);
+        if (ids != null) {
+            List<T> loaded = session.byMultipleIds(clazz).multiLoad(ids);
+            List<T> results = new ArrayList<>(loaded.size());
+            for (T t: loaded) {
+                if (t != null) results.add(t);
+            }
+            return results;
+        }
+        List<T> results = listUsingPredicateBuilder(predicateBuilder, clazz, orderBy, new JoinPlan(), null);
+        ids = new ArrayList<>(results.size());
+        for (T t: results) {
+            ids.add((Serializable) this.sessionFactory.getPersistenceUnitUtil().getIdentifier(t));
+        }
+        resultCache.put(key, generation, ids);
+        return results;
+    }
+
+    private void invalidateResultCache(Class<?> clazz) {
+        invalidateResultCache(Collections.<Class<?>>singleton(clazz));
+    }
+
+    private void invalidateResultCache(Collection<?> objects) {
+        if (resultCache == null) {
+            return;
+        }
+        Set<Class<?>> classes = new HashSet<>();
+        for (Object object: objects) {
+            classes.add(Hibernate.getClass(object));
+        }
+        invalidateResultCache(classes);
+    }
+
+    /**
+     * Invalidates cached results of the written classes, and of cacheable classes in their hierarchies, now and
+     * again when the transaction completes, so that no other thread is served rows read before the write became
+     * visible or, after a rollback, rows read from the rolled back state.
+     */
+    private void invalidateResultCache(Set<Class<?>> classes) {
+        if (resultCache == null) {
+            return;
+        }
+        for (Class<?> clazz: classes) {
+            resultCache.invalidateHierarchy(clazz);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    for (Class<?> clazz: classes) {
+                        resultCache.invalidateHierarchy(clazz);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Loads the objects matching an already normalized tree. A top-level IN with more values than
+     * {@link InListOptions#getChunkThreshold()} is split into chunks of {@link InListOptions#getChunkSize()}
+     * values, queried one after another or on {@link InListOptions#getExecutor()}; the results are merged without
+     * duplicates and sorted again by {@code orderBy}. IN lists are padded, when {@link InListOptions#isPadding()},
+     * only after splitting.
+     *
+     * @param timing marked as built before the first statement runs, may be null
+     */
+    private <T> List<T> listUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz,
+                                                  List<OrderBy> orderBy, JoinPlan joinPlan, QueryTiming timing) {
+        CustomPredicate in = InLists.findSplittable(predicateBuilder, inListOptions.getChunkThreshold());
+        if (in == null) {
+            Session session = getReadSession();
+            TypedQuery<T> typedQuery = getTypedQueryFromBuilder(session, pad(predicateBuilder), clazz, orderBy,
+                    joinPlan);
+            if (timing != null) timing.built();
+            List<T> results = typedQuery.getResultList();
+            fetchBatches(session, results, joinPlan);
+            return results;
+        }
+        List<PredicateBuilder> chunks = new ArrayList<>();
+        for (PredicateBuilder chunk: InLists.split(predicateBuilder, in, inListOptions.getChunkSize())) {
+            chunks.add(pad(chunk));
+        }
+        if (timing != null) timing.built();
+        List<T> results = loadsChunksInParallel() ? loadChunksInParallel(chunks, clazz, orderBy, joinPlan)
+                : loadChunks(chunks, clazz, orderBy, joinPlan);
+        if (!orderBy.isEmpty()) {
+            results.sort(JavaPredicateCompiler.comparator(orderBy, clazz));
+        }
+        return results;
+    }
+
+    private PredicateBuilder pad(PredicateBuilder predicateBuilder) {
+        return inListOptions.isPadding() ? InLists.pad(predicateBuilder, inListOptions.getPaddingLimit())
+                : predicateBuilder;
+    }
+
+    /**
+     * Whether chunks run on {@link InListOptions#getExecutor()}: only when one is set and the call is not in a
+     * read-write transaction of the caller, whose uncommitted writes other sessions cannot see. The read-write
+     * transaction a read method starts for itself, outside any transaction, has written nothing.
+     */
+    private boolean loadsChunksInParallel() {
+        return inListOptions.getExecutor() != null
+                && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ReplicaRouting.isStartedBy(getClass()));
+    }
+
+    private <T> List<T> loadChunks(List<PredicateBuilder> chunks, Class<T> clazz, List<OrderBy> orderBy,
+                                   JoinPlan joinPlan) {
+        Session session = getReadSession();
+        Set<T> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<T> results = new ArrayList<>();
+        for (PredicateBuilder chunk: chunks) {
+            for (T t: getTypedQueryFromBuilder(session, chunk, clazz, orderBy, joinPlan).getResultList()) {
+                if (seen.add(t)) results.add(t);
+            }
+        }
+        fetchBatches(session, results, joinPlan);
+        return results;
+    }
+
+    /**
+     * Loads each chunk on {@link InListOptions#getExecutor()} in a session of its own, opened on the factory
+     * chosen here on the calling thread. The objects returned are detached, and the chunks are read outside the
+     * caller's transaction.
+     */
+    private <T> List<T> loadChunksInParallel(List<PredicateBuilder> chunks, Class<T> clazz, List<OrderBy> orderBy,
+                                             JoinPlan joinPlan) {
+        SessionFactory factory = readsFromReplica() ? replicaRouting.any() : this.sessionFactory;
+        List<CompletableFuture<Map<Serializable, T>>> futures = new ArrayList<>(chunks.size());
+        for (PredicateBuilder chunk: chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Session session = openStreamingSession(factory);
+                try {
+                    Map<Serializable, T> loaded = new LinkedHashMap<>();
+                    for (T t: getTypedQueryFromBuilder(session, chunk, clazz, orderBy, joinPlan).getResultList()) {
+                        loaded.put(session.getIdentifier(t), t);
+                    }
+                    fetchBatches(session, loaded.values(), joinPlan);
+                    return loaded;
+                } finally {
+                    ScrollingIterator.closeSession(session);
+                }
+            }, inListOptions.getExecutor()));
+        }
+        Map<Serializable, T> results = new LinkedHashMap<>();
+        try {
+            for (CompletableFuture<Map<Serializable, T>> future: futures) {
+                for (Map.Entry<Serializable, T> entry: future.join().entrySet()) {
+                    results.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * Loads the associations {@link JoinPlan#batchFetch} asks for on {@code results}, which {@code session}
+     * manages. Owners whose association is not loaded yet are queried again with it fetch joined, one statement
+     * per batch of owners, which loads it into the persistence context; paths fetch joined by the query itself
+     * are skipped.
+     */
+    private static void fetchBatches(Session session, Collection<?> results, JoinPlan joinPlan) {
+        if (results.isEmpty() || joinPlan.getBatchSizes().isEmpty()) {
+            return;
+        }
+        SessionImplementor implementor = session.unwrap(SessionImplementor.class);
+        for (Map.Entry<String, Integer> entry: joinPlan.getBatchSizes().entrySet()) {
+            String path = entry.getKey();
+            if (joinPlan.isFetch(path)) {
+                continue;
+            }
+            int index = path.lastIndexOf('.');
+            Collection<Object> owners = reachable(implementor, results, index < 0 ? null : path.substring(0, index));
+            fetchBatch(implementor, owners, path.substring(index + 1), entry.getValue());
+        }
+    }
+
+    /**
+     * Returns the objects reached from {@code results} through the associations on {@code path}, each once, or
+     * the results themselves for a null path. The associations must already be loaded.
+     */
+    private static Collection<Object> reachable(SessionImplementor session, Collection<?> results, String path) {
+        Collection<Object> owners = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object result: results) {
+            owners.add(Hibernate.unproxy(result));
+        }
+        if (path == null) {
+            return owners;
+        }
+        for (String segment: path.split("\\.")) {
+            Collection<Object> next = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Object owner: owners) {
+                Object value = session.getEntityPersister(null, owner).getPropertyValue(owner, segment);
+                if (value instanceof Map) {
+                    value = ((Map<?, ?>) value).values();
+                }
+                if (value instanceof Collection) {
+                    for (Object element: (Collection<?>) value) {
+                        if (element != null) next.add(Hibernate.unproxy(element));
+                    }
+                } else if (value != null) {
+                    next.add(Hibernate.unproxy(value));
+                }
+            }
+            owners = next;
+        }
+        return owners;
+    }
+
+    private static void fetchBatch(SessionImplementor session, Collection<Object> owners, String attribute,
+                                   int batchSize) {
+        Map<String, List<Object>> pending = new LinkedHashMap<>();
+        for (Object owner: owners) {
+            EntityPersister persister = session.getEntityPersister(null, owner);
+            if (!Hibernate.isInitialized(persister.getPropertyValue(owner, attribute))) {
+                pending.computeIfAbsent(persister.getEntityName(), name -> new ArrayList<>()).add(owner);
+            }
+        }
+        for (Map.Entry<String, List<Object>> entry: pending.entrySet()) {
+            String hql = "select o from " + entry.getKey() + " o left join fetch o." + attribute + " where o in (:owners)";
+            List<Object> batch = entry.getValue();
+            for (int start = 0; start < batch.size(); start += batchSize) {
+                session.createQuery(hql)
+                        .setParameterList("owners", batch.subList(start, Math.min(start + batchSize, batch.size())))
+                        .list();
+            }
+        }
+    }
+
+    /**
+     * @return null when no {@link QueryMetrics} is registered, so that calls are not timed at all
+     */
+    private QueryTiming startTiming(String method, Class<?> clazz) {
+        return queryMetrics.isEmpty() ? null : new QueryTiming(method, clazz);
+    }
+
+    private void record(QueryTiming timing, PredicateBuilder predicateBuilder, int rows, int entities) {
+        if (timing != null) {
+            record(timing.finish(predicateBuilder, rows, entities, 0, 0));
+        }
+    }
+
+    private void record(QueryEvent event) {
+        for (QueryMetrics metrics: queryMetrics) {
+            metrics.record(event);
+        }
+    }
+
+    /**
+     * Checks fields and converts values with {@link FieldPathRegistry#validate}, applies
+     * {@link #getCaseFoldingPolicy()} and normalizes {@code predicateBuilder} with {@link PredicateNormalizer}.
+     */
+    private PredicateBuilder normalize(PredicateBuilder predicateBuilder, Class<?> clazz) {
+        predicateBuilder = fieldPaths.validate(clazz, predicateBuilder);
+        return PredicateNormalizer.normalize(caseFoldingPolicy.apply(predicateBuilder, clazz));
+    }
+
     public <T> TypedQuery<T> getTypedQueryFromBuilder(PredicateBuilder predicateBuilder, Class<T> clazz, List<OrderBy> orderBy) {
+        return getTypedQueryFromBuilder(predicateBuilder, clazz, orderBy, new JoinPlan());
+    }
+
+    /**
+     * Applies the fetch joins and entity graph of {@code joinPlan}, but not its batch fetching, which only the
+     * load methods do.
+     */
+    public <T> TypedQuery<T> getTypedQueryFromBuilder(PredicateBuilder predicateBuilder, Class<T> clazz, List<OrderBy> orderBy,
+                                                      JoinPlan joinPlan) {
+        return getTypedQueryFromBuilder(getReadSession(),
+                normalize(predicateBuilder, clazz), clazz, orderBy, joinPlan);
+    }
+
+    private <T> Query<T> getTypedQueryFromBuilder(Session session, PredicateBuilder predicateBuilder, Class<T> clazz,
+                                                  List<OrderBy> orderBy, JoinPlan joinPlan) {
+        QueryShape shape = QueryShape.of(clazz, predicateBuilder, orderBy, joinPlan);
+        CompiledQuery<T> compiledQuery = queryShapeCache.get(shape);
+        if (compiledQuery == null) {
+            compiledQuery = compileQuery(predicateBuilder, clazz, orderBy, joinPlan);
+            queryShapeCache.put(shape, compiledQuery);
+        }
+        Query<T> typedQuery = session.createQuery(compiledQuery.getQuery());
+        compiledQuery.bind(typedQuery, predicateBuilder);
+        if (joinPlan.isFetching()) {
+            typedQuery.setHint(QueryHints.PASS_DISTINCT_THROUGH, false);
+        }
+        if (joinPlan.getEntityGraph() != null) {
+            typedQuery.setHint("javax.persistence.loadgraph", session.getEntityGraph(joinPlan.getEntityGraph()));
+        }
+        return typedQuery;
+    }
+
+    private <T> CompiledQuery<T> compileQuery(PredicateBuilder predicateBuilder, Class<T> clazz, List<OrderBy> orderBy,
+                                              JoinPlan joinPlan) {
         CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
         CriteriaQuery<T> query = builder.createQuery(clazz);
         Root<T> root = query.from(clazz);
+        JoinRegistry joins = new JoinRegistry(root, joinPlan, true, fieldPaths).forQuery(query);
+        for (String path: joinPlan.getFetchPaths()) {
+            joins.join(path);
+        }
+        List<ParameterExpression<?>> parameters = new ArrayList<>();
         Predicate where = builder.conjunction();
-        where = predicateBuilder.build(builder, root, where);
+        where = predicateBuilder.build(builder, joins, where, parameters);
         query.where(where);
+        if (joinPlan.isFetching()) {
+            query.distinct(true);
+        }
         if (!orderBy.isEmpty()) {
             List<Order> orders = new ArrayList<>();
             for (OrderBy order: orderBy) {
-                orders.add(order.isAsc() ? new OrderImpl(PredicateBuilder.getPath(order.getField(), root)) :
-                        new OrderImpl(PredicateBuilder.getPath(order.getField(), root), false));
+                orders.add(order.isAsc() ? new OrderImpl(joins.getPath(order.getField())) :
+                        new OrderImpl(joins.getPath(order.getField()), false));
             }
             query.orderBy(orders);
         }
+        return new CompiledQuery<>(query, parameters);
+    }
 
-        TypedQuery<T> typedQuery = this.sessionFactory.getCurrentSession().createQuery(query);
-        return typedQuery;
+    /**
+     * Loads only {@code fields} of the matching objects, as tuples whose aliases are the field paths.
+     */
+    public <T> List<Tuple> loadTuplesUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz,
+                                                           List<String> fields, List<OrderBy> orderBy) {
+        QueryTiming timing = startTiming("loadTuplesUsingPredicateBuilder", clazz);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return Collections.emptyList();
+        }
+        TypedQuery<Tuple> typedQuery = getProjectionQueryFromBuilder(predicateBuilder, clazz, Tuple.class, fields, orderBy);
+        if (timing != null) timing.built();
+        List<Tuple> list = typedQuery.getResultList();
+        record(timing, predicateBuilder, list.size(), 0);
+        return list;
+    }
+
+    public <T> List<Object[]> loadArraysUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz,
+                                                              List<String> fields, List<OrderBy> orderBy) {
+        QueryTiming timing = startTiming("loadArraysUsingPredicateBuilder", clazz);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return Collections.emptyList();
+        }
+        TypedQuery<Object[]> typedQuery = getProjectionQueryFromBuilder(predicateBuilder, clazz, Object[].class, fields, orderBy);
+        if (timing != null) timing.built();
+        List<Object[]> list = typedQuery.getResultList();
+        record(timing, predicateBuilder, list.size(), 0);
+        return list;
+    }
+
+    /**
+     * Loads {@code fields} of the matching objects into {@code dtoClass} through its constructor taking the
+     * fields in order, without hydrating entities.
+     */
+    public <T, D> List<D> loadDtosUsingPredicateBuilder(PredicateBuilder predicateBuilder, Class<T> clazz, Class<D> dtoClass,
+                                                        List<String> fields, List<OrderBy> orderBy) {
+        QueryTiming timing = startTiming("loadDtosUsingPredicateBuilder", clazz);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return Collections.emptyList();
+        }
+        TypedQuery<D> typedQuery = getProjectionQueryFromBuilder(predicateBuilder, clazz, dtoClass, fields, orderBy);
+        if (timing != null) timing.built();
+        List<D> list = typedQuery.getResultList();
+        record(timing, predicateBuilder, list.size(), 0);
+        return list;
+    }
+
+    /**
+     * Builds a query selecting {@code fields} as {@link Tuple}s, {@code Object[]}s or, for any other
+     * {@code resultClass}, instances constructed from them. Compiled queries are cached like
+     * {@link #getTypedQueryFromBuilder}.
+     */
+    public <T, R> TypedQuery<R> getProjectionQueryFromBuilder(PredicateBuilder predicateBuilder, Class<T> clazz,
+                                                              Class<R> resultClass, List<String> fields,
+                                                              List<OrderBy> orderBy) {
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        QueryShape shape = QueryShape.of(clazz, predicateBuilder, orderBy)
+                .withSelection(resultClass.getName() + fields);
+        CompiledQuery<R> compiledQuery = queryShapeCache.get(shape);
+        if (compiledQuery == null) {
+            compiledQuery = compileProjectionQuery(predicateBuilder, clazz, resultClass, fields, orderBy);
+            queryShapeCache.put(shape, compiledQuery);
+        }
+        TypedQuery<R> typedQuery = getReadSession().createQuery(compiledQuery.getQuery());
+        return compiledQuery.bind(typedQuery, predicateBuilder);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, R> CompiledQuery<R> compileProjectionQuery(PredicateBuilder predicateBuilder, Class<T> clazz,
+                                                           Class<R> resultClass, List<String> fields,
+                                                           List<OrderBy> orderBy) {
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        CriteriaQuery<R> query = resultClass == Tuple.class ? (CriteriaQuery<R>) builder.createTupleQuery()
+                : builder.createQuery(resultClass);
+        Root<T> root = query.from(clazz);
+        JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), false, fieldPaths).forQuery(query);
+        List<ParameterExpression<?>> parameters = new ArrayList<>();
+        query.where(predicateBuilder.build(builder, joins, builder.conjunction(), parameters));
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field: fields) {
+            selections.add(joins.getPath(field).alias(field));
+        }
+        if (resultClass == Tuple.class || resultClass == Object[].class) {
+            query.multiselect(selections);
+        } else {
+            query.select(builder.construct(resultClass, selections.toArray(new Selection<?>[0])));
+        }
+        if (!orderBy.isEmpty()) {
+            List<Order> orders = new ArrayList<>();
+            for (OrderBy order: orderBy) {
+                orders.add(new OrderImpl(joins.getPath(order.getField()), order.isAsc()));
+            }
+            query.orderBy(orders);
+        }
+        return new CompiledQuery<>(query, parameters);
     }
 
     public <T> List<T> loadAllObjectsWithSingleCondition(Class<T> pObjectClass, CustomPredicate customPredicate) {
@@ -258,12 +1320,7 @@ public class GenericDaoImpl {
     }
 
     public <T> T loadObjectUsingKey(Class<T> pObjectClass, String key, Comparable value) {
-       CustomPredicate customPredicate = new CustomPredicate(key, value);
-       List<T> list = loadAllObjectsWithSingleCondition(pObjectClass, customPredicate);
-       if (list != null && !list.isEmpty()) {
-           return list.get(0);
-       }
-       return null;
+       return findFirst(pObjectClass, Collections.singletonList(new CustomPredicate(key, value)));
     }
 
     public <T> T loadObjectWithSingleConditionAllowNull(Class<T> pObjectClass, CustomPredicate customPredicate) {
@@ -279,7 +1336,7 @@ public class GenericDaoImpl {
         Root<T> root = query.from(pObjectClass);
         ParameterExpression<Long> parameter = builder.parameter(Long.class);
         query.select(root).where(builder.equal(root.get("id"),parameter));
-        TypedQuery<T> typedQuery = this.sessionFactory.getCurrentSession().createQuery(query);
+        TypedQuery<T> typedQuery = getReadSession().createQuery(query);
         typedQuery.setParameter(parameter,pId);
         try {
             return typedQuery.getSingleResult();
@@ -288,6 +1345,99 @@ public class GenericDaoImpl {
         }
     }
 
+    /**
+     * Loads matching objects into a map keyed by {@code key}, streaming them so the map is filled as rows arrive.
+     * Objects are detached; see {@link #streamObjectsUsingPredicateBuilder}. A later object with the same key
+     * replaces an earlier one.
+     */
+    public <T> LongKeyedMap<T> loadObjectsAsLongMap(Class<T> clazz, PredicateBuilder predicateBuilder,
+                                                    ToLongFunction<? super T> key, StreamOptions options) {
+        LongKeyedMap<T> map = new LongKeyedMap<>();
+        try (Stream<T> stream = streamObjectsUsingPredicateBuilder(predicateBuilder, clazz,
+                Collections.<OrderBy>emptyList(), options)) {
+            stream.forEach(t -> map.put(key.applyAsLong(t), t));
+        }
+        return map;
+    }
+
+    /**
+     * Like {@link #loadObjectsAsLongMap(Class, PredicateBuilder, ToLongFunction, StreamOptions)}, but selects the
+     * integral attribute at {@code keyField} alongside each object, so keys are read from the result set rather
+     * than from the objects.
+     */
+    public <T> LongKeyedMap<T> loadObjectsAsLongMap(Class<T> clazz, PredicateBuilder predicateBuilder,
+                                                    String keyField, StreamOptions options) {
+        LongKeyedMap<T> map = new LongKeyedMap<>();
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return map;
+        }
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<T> root = query.from(clazz);
+        JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), false, fieldPaths).forQuery(query);
+        List<ParameterExpression<?>> parameters = new ArrayList<>();
+        query.multiselect(joins.getPath(keyField), root);
+        query.where(predicateBuilder.build(builder, joins, builder.conjunction(), parameters));
+
+        Session session = openStreamingSession();
+        Stream<Object[]> stream;
+        try {
+            Query<Object[]> typedQuery = session.createQuery(query);
+            new CompiledQuery<>(query, parameters).bind(typedQuery, predicateBuilder);
+            stream = ScrollingIterator.stream(session, typedQuery, options);
+        } catch (RuntimeException ex) {
+            ScrollingIterator.closeSession(session);
+            throw ex;
+        }
+        try (Stream<Object[]> rows = stream) {
+            rows.forEach(row -> map.put(((Number) row[0]).longValue(), clazz.cast(row[1])));
+        }
+        return map;
+    }
+
+    public <T> Map<Long, T> loadObjectsByIds(Class<T> clazz, Collection<Long> ids) {
+        return loadObjectsByIds(clazz, ids, new IdLoadOptions()).getObjects();
+    }
+
+    /**
+     * Loads the objects with the given ids through Hibernate multi-id loading: ids already in the session or the
+     * second-level cache are served from there and the rest are fetched with IN queries of
+     * {@link IdLoadOptions#getBatchSize()} ids. Null and repeated ids are ignored.
+     */
+    public <T> IdLoadResult<T> loadObjectsByIds(Class<T> clazz, Collection<Long> ids, IdLoadOptions options) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinctIds.remove(null);
+        Session session = getReadSession();
+        List<T> loaded = session.byMultipleIds(clazz)
+                .enableSessionCheck(true)
+                .with(CacheMode.NORMAL)
+                .withBatchSize(options.getBatchSize())
+                .enableOrderedReturn(options.isOrdered())
+                .multiLoad(distinctIds);
+
+        Map<Long, T> objects = options.isOrdered() ? new LinkedHashMap<>() : new HashMap<>();
+        Set<Long> missingIds = new LinkedHashSet<>();
+        if (options.isOrdered()) {
+            for (int i = 0; i < distinctIds.size(); i++) {
+                T t = loaded.get(i);
+                if (t == null) {
+                    missingIds.add(distinctIds.get(i));
+                } else {
+                    objects.put(distinctIds.get(i), t);
+                }
+            }
+        } else {
+            for (T t: loaded) {
+                if (t != null) objects.put((Long) session.getIdentifier(t), t);
+            }
+            for (Long id: distinctIds) {
+                if (!objects.containsKey(id)) missingIds.add(id);
+            }
+        }
+        return new IdLoadResult<>(objects, missingIds);
+    }
+
     public <T> List<T> loadControlEntity(Class<T> clazz) {
         CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
         CriteriaQuery<T> query = builder.createQuery(clazz);
@@ -300,58 +1450,242 @@ public class GenericDaoImpl {
                 break;
             }
         }
-        TypedQuery<T> typedQuery = this.sessionFactory.getCurrentSession().createQuery(query);
+        TypedQuery<T> typedQuery = getReadSession().createQuery(query);
         return typedQuery.getResultList();
     }
 
     @Transactional()
     public Long saveObject(Object object) {
         object = this.sessionFactory.getCurrentSession().merge(object);
-        return (Long) this.sessionFactory.getCurrentSession().save(object);
+        Long id = (Long) this.sessionFactory.getCurrentSession().save(object);
+        invalidateResultCache(Collections.singletonList(object));
+        return id;
     }
 
+    /**
+     * Saves the objects in the current transaction, flushing and clearing the session every
+     * {@link #getBatchFlushInterval()} objects. For large volumes use {@link #storeObjectsInBulk}.
+     */
     public void storeObjectBatch(List<?> pFSaveList) {
-        Transaction tx = this.sessionFactory.getCurrentSession().beginTransaction();
-
+        QueryTiming timing = startTiming("storeObjectBatch", pFSaveList.isEmpty() ? Object.class : pFSaveList.get(0).getClass());
+        Session session = this.sessionFactory.getCurrentSession();
+        int flushes = 0;
         for (int i = 0; i < pFSaveList.size(); i++)
         {
-            this.sessionFactory.getCurrentSession().save(pFSaveList.get(i));
-            if ((i % 20 != 0) && (i != pFSaveList.size() - 1)) {
+            session.save(pFSaveList.get(i));
+            if (((i + 1) % batchFlushInterval != 0) && (i != pFSaveList.size() - 1)) {
                 continue;
             }
-            this.sessionFactory.getCurrentSession().flush();
-            this.sessionFactory.getCurrentSession().clear();
+            session.flush();
+            session.clear();
+            flushes++;
+        }
+        invalidateResultCache(pFSaveList);
+        if (timing != null) {
+            record(timing.finish(null, pFSaveList.size(), pFSaveList.size(), flushes, flushes));
         }
-
-        tx.commit();
-        this.sessionFactory.getCurrentSession().close();
     }
 
     public void storeVectorObjectBatch(Vector<?> pFSaveList) {
-        Transaction tx = this.sessionFactory.getCurrentSession().beginTransaction();
+        storeObjectBatch(pFSaveList);
+    }
 
-        for (int i = 0; i < pFSaveList.size(); i++)
-        {
-            this.sessionFactory.getCurrentSession().save(pFSaveList.get(i));
-            if ((i % 20 != 0) && (i != pFSaveList.size() - 1)) {
-                continue;
+    /**
+     * Writes the objects with {@link BulkWriter}, outside the caller's transaction: each batch is committed on
+     * its own, so earlier batches stay written if a later one fails.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriteReport storeObjectsInBulk(List<?> objects, BulkWriteOptions options) {
+        BulkWriteReport report = new BulkWriter(this.sessionFactory).write(objects, options);
+        invalidateResultCache(objects);
+        return report;
+    }
+
+    /**
+     * Streaming variant of {@link #storeObjectsInBulk(List, BulkWriteOptions)}; every class in {@code entityClasses}
+     * has its cached results invalidated once the stream is written.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkWriteReport storeObjectsInBulk(Stream<?> objects, BulkWriteOptions options, Class<?>... entityClasses) {
+        BulkWriteReport report = new BulkWriter(this.sessionFactory).write(objects, options);
+        if (resultCache != null) {
+            for (Class<?> clazz: entityClasses) {
+                resultCache.invalidate(clazz);
             }
-            this.sessionFactory.getCurrentSession().flush();
-            this.sessionFactory.getCurrentSession().clear();
         }
-
-        tx.commit();
-        this.sessionFactory.getCurrentSession().close();
+        return report;
     }
 
     public void deleteObject(Object object) {
         this.sessionFactory.getCurrentSession().delete(object);
         this.sessionFactory.getCurrentSession().flush();
+        invalidateResultCache(Collections.singletonList(object));
+    }
+
+    /**
+     * Updates every row matching {@code predicateBuilder} with one {@code update} statement. Assignments are on
+     * attributes of {@code clazz} itself. Entities already loaded in the session are not refreshed.
+     *
+     * @return the number of rows updated
+     */
+    public <T> int updateUsingPredicateBuilder(Class<T> clazz, PredicateBuilder predicateBuilder,
+                                               Map<String, Object> assignments) {
+        PredicateBuilder normalized = normalize(predicateBuilder, clazz);
+        if (normalized.isUnsatisfiable()) {
+            return 0;
+        }
+        int updated = createBulkUpdate(this.sessionFactory.getCurrentSession(), clazz, assignments,
+                (criteria, root) -> bulkWhere(criteria, root, clazz, normalized)).executeUpdate();
+        invalidateResultCache(clazz);
+        return updated;
+    }
+
+    /**
+     * Deletes every row matching {@code predicateBuilder} with one {@code delete} statement, without loading
+     * entities; cascades and entity listeners do not run.
+     *
+     * @return the number of rows deleted
+     */
+    public <T> int deleteUsingPredicateBuilder(Class<T> clazz, PredicateBuilder predicateBuilder) {
+        PredicateBuilder normalized = normalize(predicateBuilder, clazz);
+        if (normalized.isUnsatisfiable()) {
+            return 0;
+        }
+        int deleted = createBulkDelete(this.sessionFactory.getCurrentSession(), clazz,
+                (criteria, root) -> bulkWhere(criteria, root, clazz, normalized)).executeUpdate();
+        invalidateResultCache(clazz);
+        return deleted;
+    }
+
+    /**
+     * Like {@link #updateUsingPredicateBuilder(Class, PredicateBuilder, Map)}, but updates at most
+     * {@code chunkSize} rows per transaction, walking matching ids in ascending order, so that locks and undo
+     * stay bounded. Runs outside the caller's transaction; chunks already committed stay committed on failure.
+     *
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public <T> long updateUsingPredicateBuilder(Class<T> clazz, PredicateBuilder predicateBuilder,
+                                                Map<String, Object> assignments, int chunkSize) {
+        checkChunkSize(chunkSize);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return 0;
+        }
+        long updated = executeInChunks(clazz, predicateBuilder, chunkSize, (session, ids) ->
+                createBulkUpdate(session, clazz, assignments, (criteria, root) -> root.get("id").in(ids)).executeUpdate());
+        invalidateResultCache(clazz);
+        return updated;
+    }
+
+    /**
+     * Chunked variant of {@link #deleteUsingPredicateBuilder(Class, PredicateBuilder)}; see
+     * {@link #updateUsingPredicateBuilder(Class, PredicateBuilder, Map, int)}.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public <T> long deleteUsingPredicateBuilder(Class<T> clazz, PredicateBuilder predicateBuilder, int chunkSize) {
+        checkChunkSize(chunkSize);
+        predicateBuilder = normalize(predicateBuilder, clazz);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return 0;
+        }
+        long deleted = executeInChunks(clazz, predicateBuilder, chunkSize, (session, ids) ->
+                createBulkDelete(session, clazz, (criteria, root) -> root.get("id").in(ids)).executeUpdate());
+        invalidateResultCache(clazz);
+        return deleted;
+    }
+
+    private <T> Query<?> createBulkUpdate(Session session, Class<T> clazz, Map<String, Object> assignments,
+                                          BiFunction<CommonAbstractCriteria, Root<T>, Expression<Boolean>> where) {
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        CriteriaUpdate<T> update = builder.createCriteriaUpdate(clazz);
+        Root<T> root = update.from(clazz);
+        for (Map.Entry<String, Object> assignment: assignments.entrySet()) {
+            if (assignment.getKey().indexOf('.') >= 0) {
+                throw new IllegalArgumentException("Cannot assign " + assignment.getKey() + " in a bulk update");
+            }
+            Path<Object> path = root.get(assignment.getKey());
+            if (assignment.getValue() == null) {
+                update.<Object>set(path, builder.nullLiteral(path.getJavaType()));
+            } else {
+                update.set(path, assignment.getValue());
+            }
+        }
+        update.where(where.apply(update, root));
+        return session.createQuery(update);
+    }
+
+    private <T> Query<?> createBulkDelete(Session session, Class<T> clazz, BiFunction<CommonAbstractCriteria, Root<T>, Expression<Boolean>> where) {
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        CriteriaDelete<T> delete = builder.createCriteriaDelete(clazz);
+        Root<T> root = delete.from(clazz);
+        delete.where(where.apply(delete, root));
+        return session.createQuery(delete);
+    }
+
+    /**
+     * Bulk statements cannot join or correlate, so predicates on associations and {@link PredicateBuilder#exists}
+     * nodes are applied through an id subquery.
+     */
+    private <T> Expression<Boolean> bulkWhere(CommonAbstractCriteria criteria, Root<T> root, Class<T> clazz,
+                                              PredicateBuilder predicateBuilder) {
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        if (!predicateBuilder.usesJoins()) {
+            JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), false, fieldPaths).forQuery(criteria);
+            return predicateBuilder.build(builder, joins, builder.conjunction());
+        }
+        Subquery<Object> ids = criteria.subquery(Object.class);
+        Root<T> subqueryRoot = ids.from(clazz);
+        JoinRegistry joins = new JoinRegistry(subqueryRoot, new JoinPlan(), false, fieldPaths).forQuery(ids);
+        ids.select(subqueryRoot.get("id")).where(predicateBuilder.build(builder, joins, builder.conjunction()));
+        return root.get("id").in(ids);
+    }
+
+    private static void checkChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+    }
+
+    private <T> long executeInChunks(Class<T> clazz, PredicateBuilder predicateBuilder, int chunkSize,
+                                     BiFunction<Session, List<Object>, Integer> statement) {
+        CriteriaBuilder builder = this.sessionFactory.getCriteriaBuilder();
+        long affected = 0;
+        Comparable lastId = null;
+        while (true) {
+            Session session = this.sessionFactory.openSession();
+            Transaction transaction = session.beginTransaction();
+            try {
+                CriteriaQuery<Object> query = builder.createQuery(Object.class);
+                Root<T> root = query.from(clazz);
+                Path<Comparable> id = root.get("id");
+                JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), false, fieldPaths).forQuery(query);
+                Predicate where = predicateBuilder.build(builder, joins, builder.conjunction());
+                if (lastId != null) {
+                    where = builder.and(where, builder.greaterThan(id, lastId));
+                }
+                query.select(id).distinct(true).where(where).orderBy(builder.asc(id));
+                List<Object> ids = session.createQuery(query).setMaxResults(chunkSize).getResultList();
+                if (ids.isEmpty()) {
+                    transaction.commit();
+                    return affected;
+                }
+                affected += statement.apply(session, ids);
+                transaction.commit();
+                lastId = (Comparable) ids.get(ids.size() - 1);
+            } catch (RuntimeException ex) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw ex;
+            } finally {
+                session.close();
+            }
+        }
     }
 
     public <T> boolean isObjectExisting(Class<T> clazz, PredicateBuilder predicateBuilder) {
-        TypedQuery<T> typedQuery = getTypedQueryFromBuilder(predicateBuilder, clazz, Collections.EMPTY_LIST);
-        return !typedQuery.getResultList().isEmpty();
+        return exists(clazz, predicateBuilder);
     }
 
     public Session getCurrentSession() {
@@ -359,8 +1693,7 @@ public class GenericDaoImpl {
     }
 
     public Long loadMaxValueByClassAndLongColName(Class<?> clazz, String pLongColumnOrmName) {
-        List results = this.sessionFactory
-                .getCurrentSession()
+        List results = getReadSession()
                 .createCriteria(clazz)
                 .setProjection(Projections.max(pLongColumnOrmName)).list();
 
@@ -375,13 +1708,14 @@ public class GenericDaoImpl {
         CriteriaQuery<T> query = builder.createQuery(pObjectClass);
         Root<T> root = query.from(pObjectClass);
         query.select(root);
+        JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), true, fieldPaths);
         Predicate where = builder.conjunction();
         for(CustomPredicate predicate : predicates){
             if (predicate.getField() != null)
-                where = builder.and(where, builder.equal(PredicateBuilder.getPath(predicate, root), predicate.getValue()));
+                where = builder.and(where, builder.equal(joins.getPath(predicate.getField()), predicate.getValue()));
         }
         query.where(where);
-        TypedQuery<T> typedQuery = this.sessionFactory.getCurrentSession().createQuery(query);
+        TypedQuery<T> typedQuery = getReadSession().createQuery(query);
 
         List<T> classInstance = typedQuery.getResultList();
 
@@ -389,38 +1723,54 @@ public class GenericDaoImpl {
     }
 
     public Long getTotalNoOfModelObject(Class<?> pObjectClass, List<CustomPredicate> predicates) {
-        CriteriaBuilder cb = this.sessionFactory.getCurrentSession().getCriteriaBuilder();
+        CriteriaBuilder cb = this.sessionFactory.getCriteriaBuilder();
         CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
         Root<?> root = criteriaQuery.from(pObjectClass);
-        criteriaQuery.select(cb.count(PredicateBuilder.getPath("id", root)));
+        JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), false, fieldPaths);
+        criteriaQuery.select(cb.count(joins.getPath("id")));
 
         Predicate where = cb.conjunction();
         for(CustomPredicate predicate : predicates){
             if (predicate.getField() != null)
-                where = cb.and(where, cb.equal(PredicateBuilder.getPath(predicate, root), predicate.getValue()));
+                where = cb.and(where, cb.equal(joins.getPath(predicate.getField()), predicate.getValue()));
         }
         criteriaQuery.where(where);
 
-        TypedQuery<Long> typedQuery = this.sessionFactory.getCurrentSession().createQuery(criteriaQuery);
+        TypedQuery<Long> typedQuery = getReadSession().createQuery(criteriaQuery);
         return typedQuery.getSingleResult();
     }
 
     public Long getTotalNoOfModelObject(Class<?> pObjectClass, PredicateBuilder predicateBuilder) {
-        CriteriaBuilder cb = this.sessionFactory.getCurrentSession().getCriteriaBuilder();
-        CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
-        Root<?> root = criteriaQuery.from(pObjectClass);
-        criteriaQuery.select(cb.count(PredicateBuilder.getPath("id", root)));
-
-        Predicate where = cb.conjunction();
-        where = predicateBuilder.build(cb, root, where);
-        criteriaQuery.where(where);
+        QueryTiming timing = startTiming("getTotalNoOfModelObject", pObjectClass);
+        predicateBuilder = normalize(predicateBuilder, pObjectClass);
+        if (predicateBuilder.isUnsatisfiable()) {
+            return 0L;
+        }
+        QueryShape shape = QueryShape.of(pObjectClass, predicateBuilder, Collections.<OrderBy>emptyList())
+                .withSelection("count");
+        CompiledQuery<Long> compiledQuery = queryShapeCache.get(shape);
+        if (compiledQuery == null) {
+            CriteriaBuilder cb = this.sessionFactory.getCriteriaBuilder();
+            CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
+            Root<?> root = criteriaQuery.from(pObjectClass);
+            JoinRegistry joins = new JoinRegistry(root, new JoinPlan(), false, fieldPaths).forQuery(criteriaQuery);
+            List<ParameterExpression<?>> parameters = new ArrayList<>();
+            criteriaQuery.select(cb.count(root));
+            criteriaQuery.where(predicateBuilder.build(cb, joins, cb.conjunction(), parameters));
+            compiledQuery = new CompiledQuery<>(criteriaQuery, parameters);
+            queryShapeCache.put(shape, compiledQuery);
+        }
 
-        TypedQuery<Long> typedQuery = this.sessionFactory.getCurrentSession().createQuery(criteriaQuery);
-        return typedQuery.getSingleResult();
+        TypedQuery<Long> typedQuery = getReadSession().createQuery(compiledQuery.getQuery());
+        compiledQuery.bind(typedQuery, predicateBuilder);
+        if (timing != null) timing.built();
+        Long count = typedQuery.getSingleResult();
+        record(timing, predicateBuilder, 1, 0);
+        return count;
     }
 
     public int getTotalNoOfModelObjectByClass(Class<?> pObjectClass,String pOrmCol ,boolean pDistinct) {
-        CriteriaBuilder cb = this.sessionFactory.getCurrentSession().getCriteriaBuilder();
+        CriteriaBuilder cb = this.sessionFactory.getCriteriaBuilder();
         CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
         Root<?> root = criteriaQuery.from(pObjectClass);
 
@@ -429,7 +1779,7 @@ public class GenericDaoImpl {
         else
             criteriaQuery.select(cb.count(PredicateBuilder.getPath(pOrmCol, root)));
 
-        TypedQuery<Long> typedQuery = this.sessionFactory.getCurrentSession().createQuery(criteriaQuery);
+        TypedQuery<Long> typedQuery = getReadSession().createQuery(criteriaQuery);
         return  ((Long)typedQuery.getSingleResult()).intValue();
 
     }
@@ -437,9 +1787,15 @@ public class GenericDaoImpl {
     private <T> HashMap<Long,T> makeMap(List<T> classInstance, String methodName) throws NoSuchMethodException,
             InvocationTargetException, IllegalAccessException {
         Object[] noparams = {};
-        HashMap<Long,T> wMap = new HashMap<>();
+        HashMap<Long,T> wMap = new HashMap<>(classInstance.size() * 4 / 3 + 1);
+        Class<?> wClass = null;
+        Method wMethod = null;
         for(T t : classInstance){
-            Long id = (Long) t.getClass().getMethod(methodName, null).invoke(t, noparams);
+            if (t.getClass() != wClass) {
+                wClass = t.getClass();
+                wMethod = wClass.getMethod(methodName);
+            }
+            Long id = (Long) wMethod.invoke(t, noparams);
             wMap.put(id,t);
         }
         return wMap;
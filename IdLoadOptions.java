@@ -0,0 +1,33 @@
+package com.upperlink.billerservice.repository;
+
+/**
+ * Settings for {@link GenericDaoImpl#loadObjectsByIds(Class, java.util.Collection, IdLoadOptions)}.
+ */
+public class IdLoadOptions {
+    private int batchSize = 500;
+    private boolean ordered = true;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Ids per IN query for the objects not already in the session or second-level cache.
+     */
+    public IdLoadOptions setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Returns the objects in the order of the ids given; when false the map has no defined order.
+     */
+    public IdLoadOptions setOrdered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+}
@@ -0,0 +1,26 @@
+package com.upperlink.billerservice.repository;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Objects loaded by {@link GenericDaoImpl#loadObjectsByIds(Class, java.util.Collection, IdLoadOptions)}, with
+ * the ids that matched no object.
+ */
+public class IdLoadResult<T> {
+    private final Map<Long, T> objects;
+    private final Set<Long> missingIds;
+
+    public IdLoadResult(Map<Long, T> objects, Set<Long> missingIds) {
+        this.objects = objects;
+        this.missingIds = missingIds;
+    }
+
+    public Map<Long, T> getObjects() {
+        return objects;
+    }
+
+    public Set<Long> getMissingIds() {
+        return missingIds;
+    }
+}
@@ -0,0 +1,85 @@
+package com.upperlink.billerservice.repository;
+
+import java.util.concurrent.Executor;
+
+/**
+ * How {@link GenericDaoImpl} binds large IN predicates.
+ * <p>
+ * Hibernate's own {@code hibernate.query.in_clause_parameter_padding} setting pads IN lists for every query the
+ * session factory runs and respects the dialect's IN list limit, so prefer it over {@link #setPadding}.
+ */
+public class InListOptions {
+    private boolean padding;
+    private int paddingLimit = 1000;
+    private int chunkThreshold = 1000;
+    private int chunkSize = 1000;
+    private Executor executor;
+
+    public boolean isPadding() {
+        return padding;
+    }
+
+    /**
+     * Repeats the last value of every IN list up to the next power of two, but to no more than
+     * {@link #getPaddingLimit()} values, so that lists of similar length share one statement and one cached plan.
+     * Only lists loaded by {@code loadObjectsUsingPredicateBuilder} are padded, each chunk after it is split.
+     * Off by default.
+     */
+    public InListOptions setPadding(boolean padding) {
+        this.padding = padding;
+        return this;
+    }
+
+    public int getPaddingLimit() {
+        return paddingLimit;
+    }
+
+    /**
+     * Most values a list is padded to, the database's IN list limit; 1000 by default, Oracle's limit.
+     */
+    public InListOptions setPaddingLimit(int paddingLimit) {
+        this.paddingLimit = paddingLimit;
+        return this;
+    }
+
+    public int getChunkThreshold() {
+        return chunkThreshold;
+    }
+
+    /**
+     * Lists loaded with a top-level IN of more values than this are loaded in chunks; 0 never chunks.
+     */
+    public InListOptions setChunkThreshold(int chunkThreshold) {
+        this.chunkThreshold = chunkThreshold;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Values per chunk, at most the database's IN list limit.
+     */
+    public InListOptions setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Runs chunks in parallel, each in its own read-only session and transaction on the primary or a replica, as
+     * chosen on the calling thread. The objects returned are detached and the queries run outside the caller's
+     * transaction, so they do not see its uncommitted writes. Chunks therefore run in parallel only when the DAO
+     * method is called outside a transaction, starting its own, or inside a read-only one; inside a caller's
+     * read-write transaction they still run one after another. When null, the default, chunks always run one
+     * after another in the current session.
+     */
+    public InListOptions setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+}
@@ -0,0 +1,31 @@
+package com.upperlink.billerservice.repository;
+
+import java.util.List;
+
+/**
+ * A page loaded by {@link GenericDaoImpl#loadKeysetPage}, with the token to pass back for the next page.
+ */
+public class KeysetPage<T> {
+    private final List<T> content;
+    private final String nextToken;
+
+    public KeysetPage(List<T> content, String nextToken) {
+        this.content = content;
+        this.nextToken = nextToken;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the continuation token for the next page, or null if this is the last page
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
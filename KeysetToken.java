@@ -0,0 +1,80 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.OrderBy;
+import com.upperlink.billerservice.repository.predicate.Values;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encodes the sort values of the last row of a keyset page as an opaque token. The token carries a fingerprint
+ * of the sort order so that it cannot be replayed against a differently sorted query.
+ */
+final class KeysetToken {
+    private static final String TIEBREAKER = "id";
+
+    private KeysetToken() {
+    }
+
+    static List<OrderBy> withTiebreaker(List<OrderBy> orderBy) {
+        for (OrderBy order: orderBy) {
+            if (TIEBREAKER.equals(order.getField())) {
+                return orderBy;
+            }
+        }
+        List<OrderBy> keyset = new ArrayList<>(orderBy);
+        keyset.add(new OrderBy(TIEBREAKER, orderBy.isEmpty() || orderBy.get(orderBy.size() - 1).isAsc()));
+        return keyset;
+    }
+
+    static String encode(List<OrderBy> keyset, Object[] values) {
+        StringBuilder token = new StringBuilder(fingerprint(keyset));
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new IllegalArgumentException("Keyset sort field " + keyset.get(i).getField() + " is null");
+            }
+            String value = Values.format(values[i]);
+            token.append(value.length()).append(':').append(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static List<Object> decode(String token, List<OrderBy> keyset, List<Class<?>> types) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid continuation token", ex);
+        }
+        String fingerprint = fingerprint(keyset);
+        if (!decoded.startsWith(fingerprint)) {
+            throw new IllegalArgumentException("Continuation token does not match the sort order");
+        }
+        List<Object> values = new ArrayList<>(types.size());
+        int index = fingerprint.length();
+        try {
+            for (Class<?> type: types) {
+                int separator = decoded.indexOf(':', index);
+                int length = Integer.parseInt(decoded.substring(index, separator));
+                index = separator + 1 + length;
+                values.add(Values.parse(decoded.substring(separator + 1, index), type));
+            }
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid continuation token", ex);
+        }
+        if (index != decoded.length()) {
+            throw new IllegalArgumentException("Invalid continuation token");
+        }
+        return values;
+    }
+
+    private static String fingerprint(List<OrderBy> keyset) {
+        StringBuilder shape = new StringBuilder();
+        for (OrderBy order: keyset) {
+            shape.append(order.getField()).append(order.isAsc() ? '+' : '-');
+        }
+        return Integer.toHexString(shape.toString().hashCode()) + ";";
+    }
+}
@@ -0,0 +1,37 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.List;
+
+/**
+ * Estimates unfiltered table sizes from PostgreSQL's {@code pg_class.reltuples}, which is kept up to date by
+ * ANALYZE and autovacuum. Filtered queries are not estimated.
+ */
+public class PostgresCountEstimator implements CountEstimator {
+
+    @Override
+    public Long estimate(Session session, Class<?> clazz, PredicateBuilder predicateBuilder) {
+        if (!predicateBuilder.isEmpty()) {
+            return null;
+        }
+        EntityPersister persister = ((SessionFactoryImplementor) session.getSessionFactory())
+                .getMetamodel().entityPersister(clazz);
+        if (!(persister instanceof AbstractEntityPersister)) {
+            return null;
+        }
+        List<?> results = session
+                .createNativeQuery("select cast(reltuples as bigint) from pg_class where oid = to_regclass(:table)")
+                .setParameter("table", ((AbstractEntityPersister) persister).getTableName())
+                .getResultList();
+        if (results.isEmpty() || results.get(0) == null) {
+            return null;
+        }
+        long estimate = ((Number) results.get(0)).longValue();
+        return estimate < 0 ? null : estimate;
+    }
+}
@@ -0,0 +1,83 @@
+package com.upperlink.billerservice.repository;
+
+/**
+ * Timing and size of one {@link GenericDaoImpl} call, passed to {@link QueryMetrics}.
+ */
+public class QueryEvent {
+    private final String method;
+    private final Class<?> entityClass;
+    private final String shape;
+    private final long buildNanos;
+    private final long executeNanos;
+    private final int rows;
+    private final int entities;
+    private final int flushes;
+    private final int clears;
+
+    public QueryEvent(String method, Class<?> entityClass, String shape, long buildNanos, long executeNanos,
+                      int rows, int entities, int flushes, int clears) {
+        this.method = method;
+        this.entityClass = entityClass;
+        this.shape = shape;
+        this.buildNanos = buildNanos;
+        this.executeNanos = executeNanos;
+        this.rows = rows;
+        this.entities = entities;
+        this.flushes = flushes;
+        this.clears = clears;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * The normalized predicate tree with the types of its values but not the values themselves, see
+     * {@link com.upperlink.billerservice.repository.predicate.PredicateBuilder#appendShape}; null for calls
+     * without one.
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * Time spent normalizing the tree and building or looking up the criteria query.
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Time spent running the statement and hydrating its results.
+     */
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    public long getTotalNanos() {
+        return buildNanos + executeNanos;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Entities hydrated, 0 for projections, counts and aggregates.
+     */
+    public int getEntities() {
+        return entities;
+    }
+
+    public int getFlushes() {
+        return flushes;
+    }
+
+    public int getClears() {
+        return clears;
+    }
+}
@@ -0,0 +1,15 @@
+package com.upperlink.billerservice.repository;
+
+/**
+ * Receives a {@link QueryEvent} for each instrumented {@link GenericDaoImpl} call. Calls are not timed at all
+ * while no QueryMetrics is registered.
+ * <p>
+ * A Micrometer binding records the event in timers tagged by method, entity and shape, e.g.
+ * {@code Timer.builder("dao.query.execute").tag("method", event.getMethod()).tag("shape", shapeTag)
+ * .register(registry).record(event.getExecuteNanos(), TimeUnit.NANOSECONDS)}; shapes should be mapped to a
+ * bounded set of tag values.
+ */
+public interface QueryMetrics {
+
+    void record(QueryEvent event);
+}
@@ -0,0 +1,161 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.QueryShape;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in cache of query results for the entity classes registered with {@link #cacheable(Class)}. Only the ids
+ * of the results are kept; {@link GenericDaoImpl} loads the entities through the session, so cached results
+ * are always managed and served from the persistence context or second-level cache where possible.
+ * <p>
+ * Entries are bounded by size (least recently used first) and by time to live. A write of an entity through
+ * {@link GenericDaoImpl} invalidates every entry of its class and of cacheable classes in its hierarchy; writes to
+ * associated entities used in a filter path do not. Reads {@link GenericDaoImpl} routes to a replica neither use
+ * nor fill the cache, since a lagging replica may not show a write yet.
+ */
+public class QueryResultCache {
+    private final int maxSize;
+    private final long timeToLiveMillis;
+    private final Set<Class<?>> cacheableClasses = ConcurrentHashMap.newKeySet();
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<Object, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public QueryResultCache(int maxSize, long timeToLiveMillis) {
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, QueryResultCache.Entry> eldest) {
+                if (size() > QueryResultCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public QueryResultCache cacheable(Class<?> clazz) {
+        cacheableClasses.add(clazz);
+        return this;
+    }
+
+    public boolean isCacheable(Class<?> clazz) {
+        return cacheableClasses.contains(clazz);
+    }
+
+    public static Object key(QueryShape shape, List<Object> values) {
+        return Arrays.asList(shape, values);
+    }
+
+    /**
+     * Read before running the query and pass to {@link #put}, so a result computed while a write was in
+     * progress is not served after the write.
+     */
+    public long generation(Class<?> clazz) {
+        return generationCounter(clazz).get();
+    }
+
+    public synchronized List<Serializable> get(Object key, Class<?> clazz) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.generation != generation(clazz)) {
+            entries.remove(key);
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.ids;
+    }
+
+    public synchronized void put(Object key, long generation, List<Serializable> ids) {
+        entries.put(key, new Entry(Collections.unmodifiableList(ids), generation,
+                System.currentTimeMillis() + timeToLiveMillis));
+    }
+
+    public void invalidate(Class<?> clazz) {
+        generationCounter(clazz).incrementAndGet();
+        invalidations.increment();
+    }
+
+    /**
+     * Invalidates {@code clazz} and every cacheable class in its hierarchy, since a query on a superclass returns
+     * rows of its subclasses and a bulk statement on a superclass writes them.
+     */
+    public void invalidateHierarchy(Class<?> clazz) {
+        invalidate(clazz);
+        for (Class<?> cacheable: cacheableClasses) {
+            if (cacheable != clazz && (cacheable.isAssignableFrom(clazz) || clazz.isAssignableFrom(cacheable))) {
+                invalidate(cacheable);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Entries dropped for size or age; entries dropped by {@link #invalidate(Class)} are counted by
+     * {@link #getInvalidationCount()}.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    private AtomicLong generationCounter(Class<?> clazz) {
+        return generations.computeIfAbsent(clazz, c -> new AtomicLong());
+    }
+
+    private static final class Entry {
+        final List<Serializable> ids;
+        final long generation;
+        final long expiresAt;
+
+        Entry(List<Serializable> ids, long generation, long expiresAt) {
+            this.ids = ids;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
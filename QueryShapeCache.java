@@ -0,0 +1,40 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.CompiledQuery;
+import com.upperlink.billerservice.repository.predicate.QueryShape;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of {@link CompiledQuery} instances keyed by {@link QueryShape}.
+ */
+public class QueryShapeCache {
+    private final Map<QueryShape, CompiledQuery<?>> cache;
+
+    public QueryShapeCache(final int maxSize) {
+        this.cache = new LinkedHashMap<QueryShape, CompiledQuery<?>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QueryShape, CompiledQuery<?>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T> CompiledQuery<T> get(QueryShape shape) {
+        return (CompiledQuery<T>) cache.get(shape);
+    }
+
+    public synchronized void put(QueryShape shape, CompiledQuery<?> compiledQuery) {
+        cache.put(shape, compiledQuery);
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+}
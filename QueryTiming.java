@@ -0,0 +1,38 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+
+/**
+ * Times one {@link GenericDaoImpl} call from its start, through {@link #built()}, to {@link #finish}.
+ */
+class QueryTiming {
+    private final String method;
+    private final Class<?> entityClass;
+    private final long start;
+    private long built;
+
+    QueryTiming(String method, Class<?> entityClass) {
+        this.method = method;
+        this.entityClass = entityClass;
+        this.start = System.nanoTime();
+        this.built = start;
+    }
+
+    /**
+     * Marks the end of query building and the start of execution.
+     */
+    void built() {
+        built = System.nanoTime();
+    }
+
+    QueryEvent finish(PredicateBuilder predicateBuilder, int rows, int entities, int flushes, int clears) {
+        long end = System.nanoTime();
+        String shape = null;
+        if (predicateBuilder != null) {
+            StringBuilder builder = new StringBuilder();
+            predicateBuilder.appendShape(builder);
+            shape = builder.toString();
+        }
+        return new QueryEvent(method, entityClass, shape, built - start, end - built, rows, entities, flushes, clears);
+    }
+}
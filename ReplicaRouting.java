@@ -0,0 +1,130 @@
+package com.upperlink.billerservice.repository;
+
+import org.hibernate.SessionFactory;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The replica session factories {@link GenericDaoImpl} sends read-only queries to. Within a transaction, or the
+ * synchronization scope Spring opens for a non-transactional call, every read goes to the same replica, so its
+ * session and persistence context are reused; {@link Strategy#LEAST_BUSY} picks the replica with the fewest
+ * such scopes open.
+ * <p>
+ * Replicas must map the same entities as the primary. They are read through
+ * {@link SessionFactory#getCurrentSession()}, so under Spring they need the default Spring session context but
+ * no transaction manager of their own. Two embedded databases, e.g. two H2 in-memory URLs each with its own
+ * session factory, are enough to try the routing locally.
+ */
+public class ReplicaRouting {
+
+    public enum Strategy {
+        ROUND_ROBIN, LEAST_BUSY
+    }
+
+    private final List<SessionFactory> replicas;
+    private final Strategy strategy;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicIntegerArray busy;
+
+    public ReplicaRouting(SessionFactory replica) {
+        this(Collections.singletonList(replica), Strategy.ROUND_ROBIN);
+    }
+
+    public ReplicaRouting(List<SessionFactory> replicas, Strategy strategy) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.strategy = strategy;
+        this.busy = new AtomicIntegerArray(replicas.size());
+    }
+
+    public List<SessionFactory> getReplicas() {
+        return replicas;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * The number of scopes currently reading from replica {@code index}.
+     */
+    public int getBusy(int index) {
+        return busy.get(index);
+    }
+
+    /**
+     * Returns the replica bound to the current synchronization scope, binding one until the scope completes if
+     * there is none yet. Without an active scope, e.g. outside Spring, every call picks again.
+     */
+    public SessionFactory current() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return replicas.get(pick());
+        }
+        Integer bound = (Integer) TransactionSynchronizationManager.getResource(this);
+        if (bound != null) {
+            return replicas.get(bound);
+        }
+        int index = pick();
+        busy.incrementAndGet(index);
+        TransactionSynchronizationManager.bindResource(this, index);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaRouting.this);
+                busy.decrementAndGet(index);
+            }
+        });
+        return replicas.get(index);
+    }
+
+    /**
+     * Picks a replica for work outside any scope, e.g. a dedicated streaming session. It is not counted as
+     * busy.
+     */
+    public SessionFactory any() {
+        return replicas.get(pick());
+    }
+
+    /**
+     * Returns true if the current transaction was started by a {@code @Transactional} method of {@code target}
+     * that is still running, e.g. a DAO read called outside a transaction, rather than joined from a caller that
+     * may have written rows.
+     */
+    static boolean isStartedBy(Class<?> target) {
+        return CallingTransaction.isStartedBy(target);
+    }
+
+    private int pick() {
+        int start = (next.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+        if (strategy == Strategy.ROUND_ROBIN) {
+            return start;
+        }
+        int best = start;
+        for (int i = 1; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            if (busy.get(index) < busy.get(best)) best = index;
+        }
+        return best;
+    }
+
+    /**
+     * Reads the innermost {@code @Transactional} call, which Spring keeps only for its subclasses.
+     */
+    private abstract static class CallingTransaction extends TransactionAspectSupport {
+
+        static boolean isStartedBy(Class<?> target) {
+            TransactionInfo info = currentTransactionInfo();
+            return info != null && info.hasTransaction() && info.getTransactionStatus().isNewTransaction()
+                    && info.getJoinpointIdentification().startsWith(target.getName() + ".");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.upperlink.billerservice.repository;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates a forward-only {@link ScrollableResults} and owns the session it was opened on.
+ */
+class ScrollingIterator<T> implements Iterator<T>, AutoCloseable {
+    private final Session session;
+    private final ScrollableResults results;
+    private final int clearInterval;
+    private int rows;
+    private Boolean hasNext;
+    private boolean closed;
+
+    private ScrollingIterator(Session session, ScrollableResults results, int clearInterval) {
+        this.session = session;
+        this.results = results;
+        this.clearInterval = clearInterval;
+    }
+
+    static <T> Stream<T> stream(Session session, Query<T> query, StreamOptions options) {
+        ScrollableResults results = query.setFetchSize(options.getFetchSize()).scroll(ScrollMode.FORWARD_ONLY);
+        ScrollingIterator<T> iterator = new ScrollingIterator<>(session, results, options.getClearInterval());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hasNext == null) {
+            if (closed) {
+                return false;
+            }
+            if (clearInterval > 0 && rows > 0 && rows % clearInterval == 0) {
+                session.clear();
+            }
+            hasNext = results.next();
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = null;
+        rows++;
+        Object[] row = results.get();
+        return (T) (row.length == 1 ? row[0] : row);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            results.close();
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    static void closeSession(Session session) {
+        try {
+            Transaction transaction = session.getTransaction();
+            if (transaction.isActive()) {
+                transaction.commit();
+            }
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.upperlink.billerservice.repository;
+
+/**
+ * Maps values of the shard key to the shards of a {@link ShardedQueryExecutor}, by their index in its list of
+ * shards.
+ */
+public interface ShardResolver {
+
+    /**
+     * Returns the shard holding rows whose shard key equals {@code key}.
+     */
+    int shardFor(Comparable key);
+
+    /**
+     * Returns the shards holding rows whose shard key lies between {@code from} and {@code to} inclusive, or
+     * {@code null} if any shard may, e.g. when shards are not partitioned by range.
+     */
+    default int[] shardsBetween(Comparable from, Comparable to) {
+        return null;
+    }
+}
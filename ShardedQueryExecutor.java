@@ -0,0 +1,288 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.ConjunctionType;
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.JavaPredicateCompiler;
+import com.upperlink.billerservice.repository.predicate.JoinPlan;
+import com.upperlink.billerservice.repository.predicate.OrderBy;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import com.upperlink.billerservice.repository.predicate.Values;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Runs the same query against every shard of a partitioned schema at once and combines the results: rows are
+ * merged in {@code orderBy} order keeping only the requested page, counts and sums are added up. Each shard is an
+ * {@link AsyncGenericDao} over its own session factory and transaction manager, so shards run in parallel
+ * within their own concurrency limits and timeouts. If any shard fails, the combined future fails and the queries
+ * still running on other shards are cancelled.
+ * <p>
+ * With a shard key field and a {@link ShardResolver}, a query whose predicate pins the shard key, through
+ * {@code EQUALS}, {@code IN} or, if the resolver supports ranges, {@code BETWEEN} at the top level or in every
+ * branch of an {@code OR}, only runs on the shards that can hold matching rows.
+ * <p>
+ * Rows are compared in memory with {@link JavaPredicateCompiler#comparator}, after their shard's session is
+ * closed, so order by attributes of the root entity or of associations the entity loads eagerly, and include a
+ * unique attribute last for a stable order across pages. The merge only holds if the shards sort rows the same
+ * way Java does: strings are compared with {@link String#compareTo}, so order by non-string attributes or by
+ * strings in a binary collation, and by attributes that are never null, since databases place nulls differently.
+ */
+public class ShardedQueryExecutor {
+    private final List<AsyncGenericDao> shards;
+    private final String shardKeyField;
+    private final ShardResolver shardResolver;
+
+    public ShardedQueryExecutor(List<AsyncGenericDao> shards) {
+        this(shards, null, null);
+    }
+
+    public ShardedQueryExecutor(List<AsyncGenericDao> shards, String shardKeyField, ShardResolver shardResolver) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.shardKeyField = shardKeyField;
+        this.shardResolver = shardResolver;
+    }
+
+    public List<AsyncGenericDao> getShards() {
+        return shards;
+    }
+
+    public String getShardKeyField() {
+        return shardKeyField;
+    }
+
+    public ShardResolver getShardResolver() {
+        return shardResolver;
+    }
+
+    /**
+     * Loads {@code maxResults} objects from {@code firstResult} across all shards. Each shard returns at most
+     * {@code firstResult + maxResults} rows sorted by {@code orderBy}, and the sorted rows are merged until the
+     * page is full. Without {@code orderBy}, shards are read in order. See the class comment for the attributes
+     * that can be sorted on.
+     */
+    public <T> CompletableFuture<List<T>> loadObjectsUsingPredicateBuilder(PredicateBuilder predicateBuilder,
+                                                                          Class<T> clazz, List<OrderBy> orderBy,
+                                                                          int firstResult, int maxResults) {
+        int limit = (int) Math.min(Integer.MAX_VALUE, (long) firstResult + maxResults);
+        Comparator<T> comparator = JavaPredicateCompiler.comparator(orderBy, clazz);
+        return scatter(predicateBuilder, dao -> dao.getTypedQueryFromBuilder(predicateBuilder, clazz, orderBy)
+                .setMaxResults(limit).getResultList())
+                .thenApply(results -> merge(results, comparator, firstResult, maxResults));
+    }
+
+    public CompletableFuture<Long> getTotalNoOfModelObject(Class<?> clazz, PredicateBuilder predicateBuilder) {
+        return scatter(predicateBuilder, dao -> dao.getTotalNoOfModelObject(clazz, predicateBuilder))
+                .thenApply(counts -> {
+                    long total = 0;
+                    for (Long count: counts) {
+                        if (count != null) total += count;
+                    }
+                    return total;
+                });
+    }
+
+    /**
+     * Sums {@code sumField} over all shards as a {@code sumClass}; {@code null} if no shard has a matching row.
+     */
+    public <T, X extends Number> CompletableFuture<X> sumFieldUsingPredicateBuilder(Class<T> rootClass,
+                                                                                    PredicateBuilder predicateBuilder,
+                                                                                    Class<X> sumClass, String sumField) {
+        return scatter(predicateBuilder, dao -> dao.sumFieldUsingPredicateBuilder(rootClass, predicateBuilder,
+                sumClass, sumField, Collections.<String>emptyList(), new JoinPlan()))
+                .thenApply(sums -> {
+                    Number total = null;
+                    for (X sum: sums) {
+                        total = add(total, sum);
+                    }
+                    Object sum = total == null ? null : Values.convert(total, sumClass);
+                    return sumClass.cast(sum == null ? total : sum);
+                });
+    }
+
+    /**
+     * Runs {@code query} on every shard that may hold rows matching {@code predicateBuilder}, giving one result
+     * per shard queried in shard order.
+     */
+    public <R> CompletableFuture<List<R>> scatter(PredicateBuilder predicateBuilder,
+                                                  Function<GenericDaoImpl, R> query) {
+        int[] targets = shardsFor(predicateBuilder);
+        List<CompletableFuture<R>> futures = new ArrayList<>(targets.length);
+        for (int shard: targets) {
+            futures.add(shards.get(shard).submit(query));
+        }
+        CompletableFuture<List<R>> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(done -> {
+                    List<R> results = new ArrayList<>(futures.size());
+                    for (CompletableFuture<R> future: futures) {
+                        results.add(future.join());
+                    }
+                    return results;
+                });
+        for (CompletableFuture<R> future: futures) {
+            future.whenComplete((value, ex) -> {
+                if (ex != null) all.completeExceptionally(ex);
+            });
+        }
+        all.whenComplete((value, ex) -> {
+            if (ex != null) {
+                for (CompletableFuture<R> future: futures) {
+                    future.cancel(true);
+                }
+            }
+        });
+        return all;
+    }
+
+    /**
+     * Returns the indexes of the shards that may hold rows matching {@code predicateBuilder}: all of them unless
+     * the predicate pins the shard key.
+     */
+    public int[] shardsFor(PredicateBuilder predicateBuilder) {
+        BitSet pinned = shardResolver == null || shardKeyField == null ? null : pinned(predicateBuilder);
+        if (pinned == null) {
+            int[] all = new int[shards.size()];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        return pinned.stream().filter(shard -> shard < shards.size()).toArray();
+    }
+
+    /**
+     * Returns the shards rows matching {@code builder} can be on, or {@code null} if they can be on any.
+     */
+    private BitSet pinned(PredicateBuilder builder) {
+        if (builder.isUnsatisfiable()) {
+            return new BitSet();
+        }
+        boolean or = builder.getConjunctionType() == ConjunctionType.OR;
+        BitSet result = null;
+        boolean empty = true;
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            if (predicate.getField() == null) {
+                continue;
+            }
+            empty = false;
+            result = combine(result, pinned(predicate), or);
+            if (or && result == null) return null;
+        }
+        for (PredicateBuilder child: builder.getBuilders()) {
+            if (child.isEmpty()) {
+                continue;
+            }
+            empty = false;
+            result = combine(result, pinned(child), or);
+            if (or && result == null) return null;
+        }
+        return empty ? null : result;
+    }
+
+    private static BitSet combine(BitSet result, BitSet shards, boolean or) {
+        if (or) {
+            if (shards == null) return null;
+            if (result == null) return shards;
+            result.or(shards);
+            return result;
+        }
+        if (shards == null) return result;
+        if (result == null) return shards;
+        result.and(shards);
+        return result;
+    }
+
+    private BitSet pinned(CustomPredicate predicate) {
+        if (!shardKeyField.equals(predicate.getField()) || predicate.isNegate() || predicate.getValue() == null) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        switch (predicate.getOperation()) {
+            case EQUALS:
+                result.set(shardResolver.shardFor(predicate.getValue()));
+                return result;
+            case IN:
+                result.set(shardResolver.shardFor(predicate.getValue()));
+                for (Comparable value: predicate.getOtherValues()) {
+                    if (value == null) return null;
+                    result.set(shardResolver.shardFor(value));
+                }
+                return result;
+            case BETWEEN:
+                Comparable to = predicate.getOtherValues().isEmpty() ? null : predicate.getOtherValues().get(0);
+                int[] range = to == null ? null : shardResolver.shardsBetween(predicate.getValue(), to);
+                if (range == null) return null;
+                for (int shard: range) {
+                    result.set(shard);
+                }
+                return result;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Merges lists each sorted by {@code comparator} into one page, taking rows from earlier lists first when
+     * they compare equal.
+     */
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> comparator, int firstResult,
+                             int maxResults) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sorted.size()), (a, b) -> {
+            int order = comparator.compare(sorted.get(a[0]).get(a[1]), sorted.get(b[0]).get(b[1]));
+            return order != 0 ? order : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!sorted.get(i).isEmpty()) heads.add(new int[]{i, 0});
+        }
+        List<T> page = new ArrayList<>(Math.min(maxResults, 1024));
+        int skipped = 0;
+        while (page.size() < maxResults && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> rows = sorted.get(head[0]);
+            if (skipped < firstResult) {
+                skipped++;
+            } else {
+                page.add(rows.get(head[1]));
+            }
+            if (++head[1] < rows.size()) heads.add(head);
+        }
+        return page;
+    }
+
+    /**
+     * Adds two sums of the types Hibernate returns for {@code sum}, either of which may be {@code null}. Integral
+     * sums are added as longs, and converted to the requested type only once all shards are added up.
+     */
+    static Number add(Number a, Number b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a instanceof BigDecimal || b instanceof BigDecimal) {
+            return decimal(a).add(decimal(b));
+        }
+        if (a instanceof BigInteger || b instanceof BigInteger) {
+            return decimal(a).add(decimal(b)).toBigInteger();
+        }
+        if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+            return a.doubleValue() + b.doubleValue();
+        }
+        return Math.addExact(a.longValue(), b.longValue());
+    }
+
+    private static BigDecimal decimal(Number number) {
+        if (number instanceof BigDecimal) return (BigDecimal) number;
+        if (number instanceof BigInteger) return new BigDecimal((BigInteger) number);
+        if (number instanceof Double || number instanceof Float) return BigDecimal.valueOf(number.doubleValue());
+        return BigDecimal.valueOf(number.longValue());
+    }
+}
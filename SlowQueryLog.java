@@ -0,0 +1,32 @@
+package com.upperlink.billerservice.repository;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs calls slower than a threshold with their predicate shape, which holds value types but no values, so that
+ * logs never contain filter data.
+ */
+public class SlowQueryLog implements QueryMetrics {
+    private static final Log log = LogFactory.getLog(SlowQueryLog.class);
+
+    private final long thresholdNanos;
+
+    public SlowQueryLog(long threshold, TimeUnit unit) {
+        this.thresholdNanos = unit.toNanos(threshold);
+    }
+
+    @Override
+    public void record(QueryEvent event) {
+        if (event.getTotalNanos() < thresholdNanos || !log.isWarnEnabled()) {
+            return;
+        }
+        log.warn("Slow " + event.getMethod() + " on " + event.getEntityClass().getSimpleName() + ": "
+                + TimeUnit.NANOSECONDS.toMillis(event.getTotalNanos()) + " ms (build "
+                + TimeUnit.NANOSECONDS.toMillis(event.getBuildNanos()) + " ms, execute "
+                + TimeUnit.NANOSECONDS.toMillis(event.getExecuteNanos()) + " ms), " + event.getRows() + " rows"
+                + (event.getShape() == null ? "" : ", where " + event.getShape()));
+    }
+}
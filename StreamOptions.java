@@ -0,0 +1,33 @@
+package com.upperlink.billerservice.repository;
+
+/**
+ * Cursor settings for the streaming methods of {@link GenericDaoImpl}.
+ */
+public class StreamOptions {
+    private int fetchSize = 500;
+    private int clearInterval = 1000;
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Rows fetched per JDBC round trip.
+     */
+    public StreamOptions setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public int getClearInterval() {
+        return clearInterval;
+    }
+
+    /**
+     * Rows read between session clears; 0 never clears.
+     */
+    public StreamOptions setClearInterval(int clearInterval) {
+        this.clearInterval = clearInterval;
+        return this;
+    }
+}
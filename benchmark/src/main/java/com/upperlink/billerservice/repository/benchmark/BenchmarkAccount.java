@@ -0,0 +1,69 @@
+package com.upperlink.billerservice.repository.benchmark;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.math.BigDecimal;
+import java.util.Date;
+
+@Entity
+@Table(indexes = {@Index(columnList = "reference"), @Index(columnList = "status")})
+public class BenchmarkAccount {
+    @Id
+    private Long id;
+    private String name;
+    private String reference;
+    private String status;
+    private BigDecimal amount;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+    @ManyToOne(fetch = FetchType.LAZY)
+    private BenchmarkBranch branch;
+
+    public BenchmarkAccount() {
+    }
+
+    public BenchmarkAccount(Long id, String name, String reference, String status, BigDecimal amount, Date createdAt,
+                            BenchmarkBranch branch) {
+        this.id = id;
+        this.name = name;
+        this.reference = reference;
+        this.status = status;
+        this.amount = amount;
+        this.createdAt = createdAt;
+        this.branch = branch;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public BenchmarkBranch getBranch() {
+        return branch;
+    }
+}
@@ -0,0 +1,33 @@
+package com.upperlink.billerservice.repository.benchmark;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+@Entity
+public class BenchmarkBranch {
+    @Id
+    private Long id;
+    private String code;
+    private String region;
+
+    public BenchmarkBranch() {
+    }
+
+    public BenchmarkBranch(Long id, String code, String region) {
+        this.id = id;
+        this.code = code;
+        this.region = region;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+}
@@ -0,0 +1,60 @@
+package com.upperlink.billerservice.repository.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * An in-memory H2 database with the benchmark schema, seeded with a given number of accounts spread over
+ * {@link #BRANCHES} branches.
+ */
+final class BenchmarkDatabase {
+    static final int BRANCHES = 100;
+    static final String[] STATUSES = {"ACTIVE", "DORMANT", "CLOSED", "PENDING"};
+
+    private BenchmarkDatabase() {
+    }
+
+    static SessionFactory open(String name) {
+        return new Configuration()
+                .addAnnotatedClass(BenchmarkBranch.class)
+                .addAnnotatedClass(BenchmarkAccount.class)
+                .setProperty("hibernate.connection.driver_class", "org.h2.Driver")
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.current_session_context_class", "thread")
+                .setProperty("hibernate.jdbc.batch_size", "50")
+                .setProperty("hibernate.order_inserts", "true")
+                .buildSessionFactory();
+    }
+
+    static void seed(SessionFactory sessionFactory, int rows) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        Transaction transaction = session.beginTransaction();
+        BenchmarkBranch[] branches = new BenchmarkBranch[BRANCHES];
+        for (int i = 0; i < BRANCHES; i++) {
+            branches[i] = new BenchmarkBranch((long) i, "BR" + i, "REGION" + (i % 6));
+            session.insert(branches[i]);
+        }
+        long start = System.currentTimeMillis() - rows * 1000L;
+        for (int i = 0; i < rows; i++) {
+            session.insert(account(i, branches[i % BRANCHES], start));
+            if (i % 100000 == 99999) {
+                transaction.commit();
+                transaction = session.beginTransaction();
+            }
+        }
+        transaction.commit();
+        session.close();
+    }
+
+    static BenchmarkAccount account(long id, BenchmarkBranch branch, long start) {
+        return new BenchmarkAccount(id, "Customer " + id, String.format("REF%010d", id), STATUSES[(int) (id % STATUSES.length)],
+                BigDecimal.valueOf(id % 100000, 2), new Date(start + id * 1000L), branch);
+    }
+}
@@ -0,0 +1,156 @@
+package com.upperlink.billerservice.repository.benchmark;
+
+import com.upperlink.billerservice.repository.GenericDaoImpl;
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.Operation;
+import com.upperlink.billerservice.repository.predicate.OrderBy;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GenericDaoImpl} against an in-memory H2 database of {@code rows} accounts. Every invocation runs in its
+ * own transaction on the thread-bound session; writes are rolled back so that the table size stays fixed.
+ * The 10M row fixture needs a heap of several gigabytes, e.g. {@code -jvmArgs -Xmx8g}, or can be skipped with
+ * {@code -p rows=10000,1000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class DaoBenchmark {
+    private static final int BATCH = 1000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private SessionFactory sessionFactory;
+    private GenericDaoImpl dao;
+    private PredicateBuilder selective;
+    private PredicateBuilder joined;
+    private PredicateBuilder branch;
+    private List<OrderBy> orderBy;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = BenchmarkDatabase.open("dao" + rows);
+        BenchmarkDatabase.seed(sessionFactory, rows);
+        dao = new GenericDaoImpl(sessionFactory);
+        nextId = rows;
+
+        selective = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("reference", String.format("REF%010d", rows / 2), Operation.GREATER_OR_EQUAL))
+                .addPredicate(new CustomPredicate("reference", String.format("REF%010d", rows / 2 + 100), Operation.LESS));
+        joined = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("branch.region", "REGION3"))
+                .addPredicate(new CustomPredicate("status", "ACTIVE"))
+                .addPredicate(new CustomPredicate("id", (long) rows / 2, Operation.GREATER_OR_EQUAL))
+                .addPredicate(new CustomPredicate("id", (long) rows / 2 + 1000, Operation.LESS));
+        branch = new PredicateBuilder().addPredicate(new CustomPredicate("branch.id", 7L));
+        orderBy = Collections.singletonList(new OrderBy("createdAt", false));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public TypedQuery<BenchmarkAccount> getTypedQueryFromBuilder() {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            return dao.getTypedQueryFromBuilder(joined, BenchmarkAccount.class, orderBy);
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    @Benchmark
+    public List<BenchmarkAccount> loadObjectsSelective() {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            return dao.loadObjectsUsingPredicateBuilder(selective, BenchmarkAccount.class, orderBy);
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    @Benchmark
+    public List<BenchmarkAccount> loadObjectsJoined() {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            return dao.loadObjectsUsingPredicateBuilder(joined, BenchmarkAccount.class, orderBy);
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    @Benchmark
+    public Long count() {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            return dao.getTotalNoOfModelObject(BenchmarkAccount.class, joined);
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    /**
+     * One branch, i.e. 1% of the table, through the reflective key getter.
+     */
+    @Benchmark
+    public HashMap<Long, BenchmarkAccount> loadObjectsAsMap() throws Exception {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            return dao.loadObjectsAsMap(BenchmarkAccount.class, branch.getPredicates(), "getId");
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int storeObjectBatch() {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            BenchmarkBranch owner = session.load(BenchmarkBranch.class, 0L);
+            List<BenchmarkAccount> accounts = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++) {
+                accounts.add(BenchmarkDatabase.account(nextId++, owner, 0));
+            }
+            dao.storeObjectBatch(accounts);
+            return accounts.size();
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.upperlink.billerservice.repository.benchmark;
+
+import com.upperlink.billerservice.repository.predicate.ConjunctionType;
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.JavaPredicateCompiler;
+import com.upperlink.billerservice.repository.predicate.JoinPlan;
+import com.upperlink.billerservice.repository.predicate.JoinRegistry;
+import com.upperlink.billerservice.repository.predicate.Operation;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import com.upperlink.billerservice.repository.predicate.PredicateNormalizer;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translation of predicate trees of {@code treeSize} predicates of one {@code operation}, half of them on a
+ * joined path, without touching the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredicateTranslationBenchmark {
+
+    @Param({"1", "8", "64"})
+    public int treeSize;
+
+    @Param({"EQUALS", "IN", "LIKE", "BETWEEN", "STARTS_WITH"})
+    public Operation operation;
+
+    private SessionFactory sessionFactory;
+    private CriteriaBuilder criteriaBuilder;
+    private PredicateBuilder predicateBuilder;
+    private java.util.function.Predicate<BenchmarkAccount> javaPredicate;
+    private BenchmarkAccount account;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = BenchmarkDatabase.open("translation");
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+        predicateBuilder = tree(treeSize, operation);
+        javaPredicate = predicateBuilder.toJavaPredicate(BenchmarkAccount.class);
+        account = BenchmarkDatabase.account(42, new BenchmarkBranch(7L, "BR7", "REGION1"), 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate buildWithParameters() {
+        CriteriaQuery<BenchmarkAccount> query = criteriaBuilder.createQuery(BenchmarkAccount.class);
+        Root<BenchmarkAccount> root = query.from(BenchmarkAccount.class);
+        List<ParameterExpression<?>> parameters = new ArrayList<>();
+        return predicateBuilder.build(criteriaBuilder, new JoinRegistry(root, new JoinPlan(), false),
+                criteriaBuilder.conjunction(), parameters);
+    }
+
+    @Benchmark
+    public Path<Object> getPath() {
+        CriteriaQuery<BenchmarkAccount> query = criteriaBuilder.createQuery(BenchmarkAccount.class);
+        Root<BenchmarkAccount> root = query.from(BenchmarkAccount.class);
+        return PredicateBuilder.getPath("branch.region", root);
+    }
+
+    @Benchmark
+    public PredicateBuilder normalize() {
+        return PredicateNormalizer.normalize(predicateBuilder);
+    }
+
+    @Benchmark
+    public java.util.function.Predicate<BenchmarkAccount> compileJavaPredicate() {
+        return JavaPredicateCompiler.compile(predicateBuilder, BenchmarkAccount.class);
+    }
+
+    @Benchmark
+    public boolean testJavaPredicate() {
+        return javaPredicate.test(account);
+    }
+
+    static PredicateBuilder tree(int size, Operation operation) {
+        PredicateBuilder builder = new PredicateBuilder(ConjunctionType.AND);
+        PredicateBuilder current = builder;
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && i % 4 == 0) {
+                PredicateBuilder child = new PredicateBuilder(i % 8 == 0 ? ConjunctionType.AND : ConjunctionType.OR);
+                current.addBuilder(child);
+                current = child;
+            }
+            current.addPredicate(predicate(i, operation));
+        }
+        return builder;
+    }
+
+    private static CustomPredicate predicate(int i, Operation operation) {
+        boolean joined = i % 2 == 1;
+        switch (operation) {
+            case IN:
+                CustomPredicate in = new CustomPredicate(joined ? "branch.id" : "id", (long) i, Operation.IN);
+                for (long v = 1; v < 16; v++) in.addOtherValue(i + v * 100);
+                return in;
+            case LIKE:
+            case STARTS_WITH:
+                return new CustomPredicate(joined ? "branch.code" : "reference", "REF" + i + (operation == Operation.LIKE ? "%" : ""),
+                        operation);
+            case BETWEEN:
+                return joined
+                        ? new CustomPredicate("createdAt", new Date(i * 1000L), Operation.BETWEEN).addOtherValue(new Date(i * 5000L))
+                        : new CustomPredicate("amount", BigDecimal.valueOf(i), Operation.BETWEEN).addOtherValue(BigDecimal.valueOf(i + 500));
+            default:
+                return new CustomPredicate(joined ? "branch.region" : "status", joined ? "REGION" + (i % 6) : "ACTIVE");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.upperlink.billerservice.repository.predicate;
+
+/**
+ * An aggregate selected under an alias, for grouped reporting queries.
+ */
+public class Aggregate {
+
+    public enum Function {
+        SUM, COUNT, COUNT_DISTINCT, AVG, MIN, MAX
+    }
+
+    private final Function function;
+    private final String field;
+    private final String alias;
+
+    /**
+     * @param field the (possibly dotted) field to aggregate; null with {@link Function#COUNT} counts rows
+     */
+    public Aggregate(Function function, String field, String alias) {
+        this.function = function;
+        this.field = field;
+        this.alias = alias;
+    }
+
+    public static Aggregate sum(String field, String alias) {
+        return new Aggregate(Function.SUM, field, alias);
+    }
+
+    public static Aggregate count(String alias) {
+        return new Aggregate(Function.COUNT, null, alias);
+    }
+
+    public static Aggregate count(String field, String alias) {
+        return new Aggregate(Function.COUNT, field, alias);
+    }
+
+    public static Aggregate countDistinct(String field, String alias) {
+        return new Aggregate(Function.COUNT_DISTINCT, field, alias);
+    }
+
+    public static Aggregate avg(String field, String alias) {
+        return new Aggregate(Function.AVG, field, alias);
+    }
+
+    public static Aggregate min(String field, String alias) {
+        return new Aggregate(Function.MIN, field, alias);
+    }
+
+    public static Aggregate max(String field, String alias) {
+        return new Aggregate(Function.MAX, field, alias);
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    @Override
+    public String toString() {
+        return function + "(" + (field == null ? "*" : field) + ") " + alias;
+    }
+}
@@ -0,0 +1,41 @@
+package com.upperlink.billerservice.repository.predicate;
+
+/**
+ * How LIKE, STRING_EQUALS, STARTS_WITH, ENDS_WITH and CONTAINS ignore case. Which one to use depends on the
+ * index on the column: a function on the column can only use an index on that same function.
+ */
+public enum CaseFolding {
+    /**
+     * Compares the column as stored, so matching is case-sensitive and a plain index can be used; prefix
+     * matches become index range scans.
+     */
+    NONE,
+    /**
+     * Compares upper(column) with the upper-cased value, the default; needs an index on upper(column).
+     */
+    UPPER,
+    /**
+     * Compares lower(column) with the lower-cased value; needs an index on lower(column).
+     */
+    LOWER,
+    /**
+     * Compares the column and value as given, for columns whose type or collation already ignores case, e.g.
+     * PostgreSQL citext or MySQL {@code _ci} collations, so a plain index can be used.
+     */
+    COLLATION;
+
+    static CaseFolding of(CustomPredicate predicate) {
+        return predicate.getCaseFolding() == null ? UPPER : predicate.getCaseFolding();
+    }
+
+    String fold(String value) {
+        switch (this) {
+            case UPPER:
+                return value.toUpperCase();
+            case LOWER:
+                return value.toLowerCase();
+            default:
+                return value;
+        }
+    }
+}
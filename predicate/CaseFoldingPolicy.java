@@ -0,0 +1,112 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the {@link CaseFolding} of text predicates that do not set one, per field, per entity or by default,
+ * so that each column is matched the way it is indexed.
+ */
+public class CaseFoldingPolicy {
+    private volatile CaseFolding defaultFolding = CaseFolding.UPPER;
+    private final Map<Class<?>, CaseFolding> entities = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Map<String, CaseFolding>> fields = new ConcurrentHashMap<>();
+
+    public CaseFoldingPolicy setDefault(CaseFolding folding) {
+        this.defaultFolding = folding;
+        return this;
+    }
+
+    public CaseFoldingPolicy forEntity(Class<?> clazz, CaseFolding folding) {
+        entities.put(clazz, folding);
+        return this;
+    }
+
+    /**
+     * @param field a path from {@code clazz}, as used in {@link CustomPredicate#getField()}
+     */
+    public CaseFoldingPolicy forField(Class<?> clazz, String field, CaseFolding folding) {
+        fields.computeIfAbsent(clazz, c -> new ConcurrentHashMap<>()).put(field, folding);
+        return this;
+    }
+
+    /**
+     * Returns the folding for {@code field} of {@code clazz}, looking at superclasses too: a field setting wins
+     * over an entity setting, which wins over the default.
+     */
+    public CaseFolding resolve(Class<?> clazz, String field) {
+        for (Class<?> type = clazz; type != null; type = type.getSuperclass()) {
+            Map<String, CaseFolding> byField = fields.get(type);
+            CaseFolding folding = byField == null ? null : byField.get(field);
+            if (folding != null) return folding;
+        }
+        for (Class<?> type = clazz; type != null; type = type.getSuperclass()) {
+            CaseFolding folding = entities.get(type);
+            if (folding != null) return folding;
+        }
+        return defaultFolding;
+    }
+
+    /**
+     * Returns a copy of {@code builder} in which every text predicate without a folding has the one resolved
+     * for {@code clazz}, or {@code builder} itself if there is none. Fields in an {@link PredicateBuilder#exists}
+     * condition are resolved as {@code path.field} of {@code clazz}. The input tree is not modified.
+     */
+    public PredicateBuilder apply(PredicateBuilder builder, Class<?> clazz) {
+        return apply(builder, clazz, "");
+    }
+
+    private PredicateBuilder apply(PredicateBuilder builder, Class<?> clazz, String prefix) {
+        if (builder.isUnsatisfiable() || !needsFolding(builder)) {
+            return builder;
+        }
+        if (builder.isExists()) {
+            return builder.withExistsCondition(apply(builder.getExistsCondition(), clazz,
+                    prefix + builder.getExistsPath() + "."));
+        }
+        PredicateBuilder folded = new PredicateBuilder(builder.getConjunctionType());
+        for (PredicateBuilder child: builder.getBuilders()) {
+            folded.addBuilder(apply(child, clazz, prefix));
+        }
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            if (needsFolding(predicate)) {
+                CustomPredicate copy = new CustomPredicate(predicate.getField(), predicate.getValue(),
+                        predicate.getOperation(), predicate.isNegate());
+                copy.setCaseFolding(resolve(clazz, prefix + predicate.getField()));
+                folded.addPredicate(copy);
+            } else {
+                folded.addPredicate(predicate);
+            }
+        }
+        return folded;
+    }
+
+    private static boolean needsFolding(PredicateBuilder builder) {
+        if (builder.isExists()) {
+            return needsFolding(builder.getExistsCondition());
+        }
+        for (PredicateBuilder child: builder.getBuilders()) {
+            if (needsFolding(child)) return true;
+        }
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            if (needsFolding(predicate)) return true;
+        }
+        return false;
+    }
+
+    private static boolean needsFolding(CustomPredicate predicate) {
+        if (predicate.getCaseFolding() != null || predicate.getField() == null) {
+            return false;
+        }
+        switch (predicate.getOperation()) {
+            case LIKE:
+            case STRING_EQUALS:
+            case STARTS_WITH:
+            case ENDS_WITH:
+            case CONTAINS:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
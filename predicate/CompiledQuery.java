@@ -0,0 +1,49 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.ParameterExpression;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link CriteriaQuery} built once per {@link QueryShape} with parameters in place of values. Each execution
+ * only binds the values of the {@link PredicateBuilder} it is run with.
+ */
+public class CompiledQuery<T> {
+    private final CriteriaQuery<T> query;
+    private final List<ParameterExpression<?>> parameters;
+
+    public CompiledQuery(CriteriaQuery<T> query, List<ParameterExpression<?>> parameters) {
+        this.query = query;
+        this.parameters = parameters;
+    }
+
+    public CriteriaQuery<T> getQuery() {
+        return query;
+    }
+
+    public List<ParameterExpression<?>> getParameters() {
+        return parameters;
+    }
+
+    public TypedQuery<T> bind(TypedQuery<T> typedQuery, PredicateBuilder predicateBuilder) {
+        return bind(typedQuery, predicateBuilder, Collections.emptyList());
+    }
+
+    /**
+     * Binds the values of {@code predicateBuilder} followed by {@code extraValues}, for parameters the query
+     * adds after the predicate tree.
+     */
+    @SuppressWarnings("unchecked")
+    public TypedQuery<T> bind(TypedQuery<T> typedQuery, PredicateBuilder predicateBuilder, List<?> extraValues) {
+        List<Object> values = new ArrayList<>(parameters.size());
+        predicateBuilder.collectValues(values);
+        values.addAll(extraValues);
+        for (int i = 0; i < parameters.size(); i++) {
+            typedQuery.setParameter((ParameterExpression<Object>) parameters.get(i), values.get(i));
+        }
+        return typedQuery;
+    }
+}
@@ -0,0 +1,432 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable predicate: an interned {@link PredicateTemplate} and its values. Values of one exact type are
+ * held unboxed by the specializations below, the first one in a field and any further IN or BETWEEN operands
+ * in an array, so a simple equality is a single object. Conditions are equal if their templates are equal and
+ * their values are equal and of the same class, as in {@link CustomPredicate}, so trees of them can be used as
+ * cache keys; see {@link ConditionTree}.
+ */
+public abstract class Condition {
+    private static final long[] NO_LONGS = {};
+    private static final int[] NO_INTS = {};
+    private static final BigDecimal[] NO_DECIMALS = {};
+    private static final String[] NO_STRINGS = {};
+    private static final Comparable[] NO_OBJECTS = {};
+
+    final PredicateTemplate template;
+    private int hash;
+
+    Condition(PredicateTemplate template) {
+        this.template = template;
+    }
+
+    public static Condition of(PredicateTemplate template, long value) {
+        return new OfLong(template, value, NO_LONGS);
+    }
+
+    public static Condition of(PredicateTemplate template, int value) {
+        return new OfInt(template, value, NO_INTS);
+    }
+
+    public static Condition of(PredicateTemplate template, BigDecimal value) {
+        return new OfDecimal(template, value, NO_DECIMALS);
+    }
+
+    public static Condition of(PredicateTemplate template, String value) {
+        return new OfString(template, value, NO_STRINGS);
+    }
+
+    /**
+     * Falls back to {@link OfObject} for a Timestamp with sub-millisecond nanos.
+     */
+    public static Condition of(PredicateTemplate template, Date value) {
+        return value != null && OfDate.supports(value.getClass(), value)
+                ? new OfDate(template, value.getClass(), value.getTime(), NO_LONGS) : new OfObject(template, value, NO_OBJECTS);
+    }
+
+    /**
+     * The first value is the predicate value and the rest its other values, e.g. the upper bound of a BETWEEN.
+     */
+    public static Condition of(PredicateTemplate template, long[] values) {
+        requireValues(values.length);
+        return new OfLong(template, values[0], values.length == 1 ? NO_LONGS : Arrays.copyOfRange(values, 1, values.length));
+    }
+
+    public static Condition of(PredicateTemplate template, int[] values) {
+        requireValues(values.length);
+        return new OfInt(template, values[0], values.length == 1 ? NO_INTS : Arrays.copyOfRange(values, 1, values.length));
+    }
+
+    public static Condition of(PredicateTemplate template, BigDecimal[] values) {
+        requireValues(values.length);
+        return new OfDecimal(template, values[0], values.length == 1 ? NO_DECIMALS : Arrays.copyOfRange(values, 1, values.length));
+    }
+
+    public static Condition of(PredicateTemplate template, String[] values) {
+        requireValues(values.length);
+        return new OfString(template, values[0], values.length == 1 ? NO_STRINGS : Arrays.copyOfRange(values, 1, values.length));
+    }
+
+    /**
+     * For values of any other type, or of mixed types; they must not be modified afterwards.
+     */
+    public static Condition ofValues(PredicateTemplate template, Comparable... values) {
+        requireValues(values.length);
+        return new OfObject(template, values[0], values.length == 1 ? NO_OBJECTS : Arrays.copyOfRange(values, 1, values.length));
+    }
+
+    /**
+     * Converts {@code predicate}, picking the specialization for the exact class shared by all its values;
+     * {@link #toCustomPredicate()} gives back an equal predicate.
+     */
+    public static Condition of(CustomPredicate predicate) {
+        PredicateTemplate template = PredicateTemplate.of(predicate);
+        Comparable value = predicate.getValue();
+        List<Comparable> others = predicate.getOtherValues();
+        int size = others == null ? 0 : others.size();
+        Class<?> type = value == null ? null : value.getClass();
+        for (int i = 0; i < size && type != null; i++) {
+            if (others.get(i) == null || others.get(i).getClass() != type) type = null;
+        }
+        if (type == Long.class) {
+            long[] values = new long[size];
+            for (int i = 0; i < size; i++) values[i] = (Long) others.get(i);
+            return new OfLong(template, (Long) value, size == 0 ? NO_LONGS : values);
+        }
+        if (type == Integer.class) {
+            int[] values = new int[size];
+            for (int i = 0; i < size; i++) values[i] = (Integer) others.get(i);
+            return new OfInt(template, (Integer) value, size == 0 ? NO_INTS : values);
+        }
+        if (type == BigDecimal.class) {
+            return new OfDecimal(template, (BigDecimal) value, size == 0 ? NO_DECIMALS : others.toArray(new BigDecimal[size]));
+        }
+        if (type == String.class) {
+            return new OfString(template, (String) value, size == 0 ? NO_STRINGS : others.toArray(new String[size]));
+        }
+        if (type != null && OfDate.supports(type, value)) {
+            long[] values = new long[size];
+            for (int i = 0; i < size; i++) {
+                if (!OfDate.supports(type, others.get(i))) return ofObjects(template, value, others);
+                values[i] = ((Date) others.get(i)).getTime();
+            }
+            return new OfDate(template, type, ((Date) value).getTime(), size == 0 ? NO_LONGS : values);
+        }
+        return ofObjects(template, value, others);
+    }
+
+    private static Condition ofObjects(PredicateTemplate template, Comparable value, List<Comparable> others) {
+        return new OfObject(template, value, others == null || others.isEmpty() ? NO_OBJECTS : others.toArray(new Comparable[0]));
+    }
+
+    public PredicateTemplate getTemplate() {
+        return template;
+    }
+
+    public String getField() {
+        return template.getField();
+    }
+
+    public Operation getOperation() {
+        return template.getOperation();
+    }
+
+    /**
+     * The number of values, i.e. one more than the other values of the predicate.
+     */
+    public abstract int size();
+
+    /**
+     * Returns value {@code index}, boxed; index 0 is the predicate value.
+     */
+    public abstract Comparable get(int index);
+
+    public CustomPredicate toCustomPredicate() {
+        CustomPredicate predicate = new CustomPredicate(template.getField(), get(0), template.getOperation(), template.isNegate());
+        predicate.setCaseFolding(template.getCaseFolding());
+        for (int i = 1; i < size(); i++) {
+            predicate.addOtherValue(get(i));
+        }
+        return predicate;
+    }
+
+    abstract boolean sameValues(Condition other);
+
+    abstract int valuesHash();
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || o.getClass() != getClass()) return false;
+        Condition that = (Condition) o;
+        return hashCode() == that.hashCode() && template.equals(that.template) && sameValues(that);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 31 * template.hashCode() + valuesHash();
+            if (h == 0) h = 1;
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(template.toString());
+        for (int i = 0; i < size(); i++) {
+            Comparable value = get(i);
+            text.append(i == 0 ? " " : ", ").append(value == null ? "null" : Values.format(value));
+        }
+        return text.toString();
+    }
+
+    private static void requireValues(int length) {
+        if (length == 0) throw new IllegalArgumentException("At least one value is required");
+    }
+
+    public static final class OfLong extends Condition {
+        private final long value;
+        private final long[] others;
+
+        OfLong(PredicateTemplate template, long value, long[] others) {
+            super(template);
+            this.value = value;
+            this.others = others;
+        }
+
+        public long getLong(int index) {
+            return index == 0 ? value : others[index - 1];
+        }
+
+        @Override
+        public int size() {
+            return others.length + 1;
+        }
+
+        @Override
+        public Comparable get(int index) {
+            return getLong(index);
+        }
+
+        @Override
+        boolean sameValues(Condition other) {
+            OfLong that = (OfLong) other;
+            return value == that.value && Arrays.equals(others, that.others);
+        }
+
+        @Override
+        int valuesHash() {
+            return 31 * Long.hashCode(value) + Arrays.hashCode(others);
+        }
+    }
+
+    public static final class OfInt extends Condition {
+        private final int value;
+        private final int[] others;
+
+        OfInt(PredicateTemplate template, int value, int[] others) {
+            super(template);
+            this.value = value;
+            this.others = others;
+        }
+
+        public int getInt(int index) {
+            return index == 0 ? value : others[index - 1];
+        }
+
+        @Override
+        public int size() {
+            return others.length + 1;
+        }
+
+        @Override
+        public Comparable get(int index) {
+            return getInt(index);
+        }
+
+        @Override
+        boolean sameValues(Condition other) {
+            OfInt that = (OfInt) other;
+            return value == that.value && Arrays.equals(others, that.others);
+        }
+
+        @Override
+        int valuesHash() {
+            return 31 * value + Arrays.hashCode(others);
+        }
+    }
+
+    public static final class OfDecimal extends Condition {
+        private final BigDecimal value;
+        private final BigDecimal[] others;
+
+        OfDecimal(PredicateTemplate template, BigDecimal value, BigDecimal[] others) {
+            super(template);
+            this.value = value;
+            this.others = others;
+        }
+
+        public BigDecimal getDecimal(int index) {
+            return index == 0 ? value : others[index - 1];
+        }
+
+        @Override
+        public int size() {
+            return others.length + 1;
+        }
+
+        @Override
+        public Comparable get(int index) {
+            return getDecimal(index);
+        }
+
+        @Override
+        boolean sameValues(Condition other) {
+            OfDecimal that = (OfDecimal) other;
+            return Objects.equals(value, that.value) && Arrays.equals(others, that.others);
+        }
+
+        @Override
+        int valuesHash() {
+            return 31 * Objects.hashCode(value) + Arrays.hashCode(others);
+        }
+    }
+
+    public static final class OfString extends Condition {
+        private final String value;
+        private final String[] others;
+
+        OfString(PredicateTemplate template, String value, String[] others) {
+            super(template);
+            this.value = value;
+            this.others = others;
+        }
+
+        public String getString(int index) {
+            return index == 0 ? value : others[index - 1];
+        }
+
+        @Override
+        public int size() {
+            return others.length + 1;
+        }
+
+        @Override
+        public Comparable get(int index) {
+            return getString(index);
+        }
+
+        @Override
+        boolean sameValues(Condition other) {
+            OfString that = (OfString) other;
+            return Objects.equals(value, that.value) && Arrays.equals(others, that.others);
+        }
+
+        @Override
+        int valuesHash() {
+            return 31 * Objects.hashCode(value) + Arrays.hashCode(others);
+        }
+    }
+
+    /**
+     * Dates as epoch milliseconds and the exact class, java.util.Date or one of the java.sql types, that
+     * {@link #get(int)} recreates.
+     */
+    public static final class OfDate extends Condition {
+        private final Class<?> type;
+        private final long value;
+        private final long[] others;
+
+        OfDate(PredicateTemplate template, Class<?> type, long value, long[] others) {
+            super(template);
+            this.type = type;
+            this.value = value;
+            this.others = others;
+        }
+
+        static boolean supports(Class<?> type, Object value) {
+            if (value == null || value.getClass() != type) return false;
+            if (type == Timestamp.class) return ((Timestamp) value).getNanos() % 1000000 == 0;
+            return type == Date.class || type == java.sql.Date.class || type == java.sql.Time.class;
+        }
+
+        public long getMillis(int index) {
+            return index == 0 ? value : others[index - 1];
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        @Override
+        public int size() {
+            return others.length + 1;
+        }
+
+        @Override
+        public Comparable get(int index) {
+            long millis = getMillis(index);
+            if (type == Timestamp.class) return new Timestamp(millis);
+            if (type == java.sql.Date.class) return new java.sql.Date(millis);
+            if (type == java.sql.Time.class) return new java.sql.Time(millis);
+            return new Date(millis);
+        }
+
+        @Override
+        boolean sameValues(Condition other) {
+            OfDate that = (OfDate) other;
+            return type == that.type && value == that.value && Arrays.equals(others, that.others);
+        }
+
+        @Override
+        int valuesHash() {
+            return 31 * (31 * type.hashCode() + Long.hashCode(value)) + Arrays.hashCode(others);
+        }
+    }
+
+    /**
+     * Values of any other type, mixed types or nulls.
+     */
+    public static final class OfObject extends Condition {
+        private final Comparable value;
+        private final Comparable[] others;
+
+        OfObject(PredicateTemplate template, Comparable value, Comparable[] others) {
+            super(template);
+            this.value = value;
+            this.others = others;
+        }
+
+        @Override
+        public int size() {
+            return others.length + 1;
+        }
+
+        @Override
+        public Comparable get(int index) {
+            return index == 0 ? value : others[index - 1];
+        }
+
+        @Override
+        boolean sameValues(Condition other) {
+            OfObject that = (OfObject) other;
+            return Objects.equals(value, that.value) && Arrays.equals(others, that.others);
+        }
+
+        @Override
+        int valuesHash() {
+            return 31 * Objects.hashCode(value) + Arrays.hashCode(others);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable {@link PredicateBuilder}: a conjunction over nested trees and {@link Condition}s, held in arrays.
+ * Trees are equal if their conjunctions, children and conditions are equal in the same order, and the hash is
+ * computed once, so a tree can be used directly as a cache key. {@link #of(PredicateBuilder)} and
+ * {@link #toPredicateBuilder()} convert without loss in either direction.
+ */
+public final class ConditionTree {
+    private static final ConditionTree[] NO_CHILDREN = {};
+    private static final Condition[] NO_CONDITIONS = {};
+    private static final ConditionTree UNSATISFIABLE = new ConditionTree(ConjunctionType.AND, NO_CHILDREN, NO_CONDITIONS, true,
+            null, false);
+
+    private final ConjunctionType conjunctionType;
+    private final ConditionTree[] children;
+    private final Condition[] conditions;
+    private final boolean unsatisfiable;
+    private final String existsPath;
+    private final boolean existsNegated;
+    private final int hash;
+
+    private ConditionTree(ConjunctionType conjunctionType, ConditionTree[] children, Condition[] conditions,
+                          boolean unsatisfiable, String existsPath, boolean existsNegated) {
+        this.conjunctionType = conjunctionType;
+        this.children = children;
+        this.conditions = conditions;
+        this.unsatisfiable = unsatisfiable;
+        this.existsPath = existsPath;
+        this.existsNegated = existsNegated;
+        int h = conjunctionType == null ? 0 : conjunctionType.ordinal() + 1;
+        h = 31 * h + Arrays.hashCode(children);
+        h = 31 * h + Arrays.hashCode(conditions);
+        h = 31 * h + Objects.hashCode(existsPath) + (existsNegated ? 1 : 0);
+        this.hash = 31 * h + (unsatisfiable ? 1 : 0);
+    }
+
+    public static ConditionTree and(Condition... conditions) {
+        return of(ConjunctionType.AND, NO_CHILDREN, conditions);
+    }
+
+    public static ConditionTree or(Condition... conditions) {
+        return of(ConjunctionType.OR, NO_CHILDREN, conditions);
+    }
+
+    public static ConditionTree of(ConjunctionType conjunctionType, ConditionTree[] children, Condition[] conditions) {
+        return new ConditionTree(conjunctionType, children.length == 0 ? NO_CHILDREN : children.clone(),
+                conditions.length == 0 ? NO_CONDITIONS : conditions.clone(), false, null, false);
+    }
+
+    /**
+     * See {@link PredicateBuilder#exists}; the condition is the only child of the returned tree.
+     */
+    public static ConditionTree exists(String path, ConditionTree condition) {
+        return new ConditionTree(ConjunctionType.AND, new ConditionTree[]{condition}, NO_CONDITIONS, false, path, false);
+    }
+
+    public static ConditionTree notExists(String path, ConditionTree condition) {
+        return new ConditionTree(ConjunctionType.AND, new ConditionTree[]{condition}, NO_CONDITIONS, false, path, true);
+    }
+
+    public static ConditionTree unsatisfiable() {
+        return UNSATISFIABLE;
+    }
+
+    public static ConditionTree of(PredicateBuilder builder) {
+        if (builder.isUnsatisfiable()) {
+            return UNSATISFIABLE;
+        }
+        if (builder.isExists()) {
+            ConditionTree condition = of(builder.getExistsCondition());
+            return builder.isExistsNegated() ? notExists(builder.getExistsPath(), condition)
+                    : exists(builder.getExistsPath(), condition);
+        }
+        List<PredicateBuilder> builders = builder.getBuilders();
+        ConditionTree[] children = builders.isEmpty() ? NO_CHILDREN : new ConditionTree[builders.size()];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = of(builders.get(i));
+        }
+        List<CustomPredicate> predicates = builder.getPredicates();
+        Condition[] conditions = predicates.isEmpty() ? NO_CONDITIONS : new Condition[predicates.size()];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = Condition.of(predicates.get(i));
+        }
+        return new ConditionTree(builder.getConjunctionType(), children, conditions, false, null, false);
+    }
+
+    /**
+     * Returns a new mutable builder equal in structure and values to the one this tree was made from.
+     */
+    public PredicateBuilder toPredicateBuilder() {
+        if (unsatisfiable) {
+            return PredicateBuilder.unsatisfiable();
+        }
+        if (existsPath != null) {
+            PredicateBuilder condition = children[0].toPredicateBuilder();
+            return existsNegated ? PredicateBuilder.notExists(existsPath, condition)
+                    : PredicateBuilder.exists(existsPath, condition);
+        }
+        PredicateBuilder builder = new PredicateBuilder(conjunctionType);
+        for (ConditionTree child: children) {
+            builder.addBuilder(child.toPredicateBuilder());
+        }
+        for (Condition condition: conditions) {
+            builder.addPredicate(condition.toCustomPredicate());
+        }
+        return builder;
+    }
+
+    public ConjunctionType getConjunctionType() {
+        return conjunctionType;
+    }
+
+    public int getChildCount() {
+        return children.length;
+    }
+
+    public ConditionTree getChild(int index) {
+        return children[index];
+    }
+
+    public int getConditionCount() {
+        return conditions.length;
+    }
+
+    public Condition getCondition(int index) {
+        return conditions[index];
+    }
+
+    public boolean isUnsatisfiable() {
+        return unsatisfiable;
+    }
+
+    public boolean isExists() {
+        return existsPath != null;
+    }
+
+    public String getExistsPath() {
+        return existsPath;
+    }
+
+    public boolean isExistsNegated() {
+        return existsNegated;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ConditionTree)) return false;
+        ConditionTree that = (ConditionTree) o;
+        return hash == that.hash && conjunctionType == that.conjunctionType && unsatisfiable == that.unsatisfiable
+                && Objects.equals(existsPath, that.existsPath) && existsNegated == that.existsNegated
+                && Arrays.equals(children, that.children) && Arrays.equals(conditions, that.conditions);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        if (unsatisfiable) {
+            return "FALSE";
+        }
+        if (existsPath != null) {
+            return (existsNegated ? "NOT EXISTS " : "EXISTS ") + existsPath + " " + children[0];
+        }
+        StringBuilder text = new StringBuilder().append(conjunctionType).append('(');
+        String separator = "";
+        for (ConditionTree child: children) {
+            text.append(separator).append(child);
+            separator = ", ";
+        }
+        for (Condition condition: conditions) {
+            text.append(separator).append(condition);
+            separator = ", ";
+        }
+        return text.append(')').toString();
+    }
+}
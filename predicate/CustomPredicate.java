@@ -14,6 +14,10 @@ public class CustomPredicate {
     private List<Comparable> otherValues = new ArrayList<>();
     private Operation operation;
     private boolean negate;
+    /**
+     * For text operations; null uses {@link CaseFolding#UPPER} unless {@link CaseFoldingPolicy} sets it.
+     */
+    private CaseFolding caseFolding;
 
     /**
      *
@@ -0,0 +1,82 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import javax.persistence.metamodel.Attribute;
+
+/**
+ * A dotted field path resolved against the metamodel of one entity class; see {@link FieldPathRegistry}.
+ */
+public final class FieldPath {
+    private final Class<?> entityClass;
+    private final String path;
+    private final String parentPath;
+    private final String[] segments;
+    private final Attribute.PersistentAttributeType[] attributeTypes;
+    private final Class<?> javaType;
+    private final boolean collection;
+
+    FieldPath(Class<?> entityClass, String path, String[] segments, Attribute.PersistentAttributeType[] attributeTypes,
+              Class<?> javaType, boolean collection) {
+        this.entityClass = entityClass;
+        this.path = path;
+        int index = path.lastIndexOf('.');
+        this.parentPath = index < 0 ? null : path.substring(0, index);
+        this.segments = segments;
+        this.attributeTypes = attributeTypes;
+        this.javaType = javaType;
+        this.collection = collection;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getLength() {
+        return segments.length;
+    }
+
+    public String getSegment(int index) {
+        return segments[index];
+    }
+
+    /**
+     * The attribute kind of each segment, e.g. MANY_TO_ONE for an association or BASIC for the last one.
+     */
+    public Attribute.PersistentAttributeType getAttributeType(int index) {
+        return attributeTypes[index];
+    }
+
+    /**
+     * The path up to the last segment, i.e. the join the attribute is read from, or null for an attribute of the
+     * entity itself.
+     */
+    public String getParentPath() {
+        return parentPath;
+    }
+
+    public String getAttribute() {
+        return segments[segments.length - 1];
+    }
+
+    /**
+     * The type of the last attribute, or of its elements if it is a collection.
+     */
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    /**
+     * Returns true if the path goes through or ends in a collection.
+     */
+    public boolean isCollection() {
+        return collection;
+    }
+
+    @Override
+    public String toString() {
+        return entityClass.getSimpleName() + "." + path;
+    }
+}
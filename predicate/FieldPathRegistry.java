@@ -0,0 +1,200 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves field paths against the JPA metamodel once per entity class and path, so that a misspelt path or a
+ * value of the wrong type fails with a clear message before any SQL is built. Paths known in advance can be
+ * checked at startup with {@link #register(Class, String...)}.
+ */
+public class FieldPathRegistry {
+    private final Metamodel metamodel;
+    private final Map<Class<?>, Map<String, FieldPath>> paths = new ConcurrentHashMap<>();
+
+    public FieldPathRegistry(Metamodel metamodel) {
+        this.metamodel = metamodel;
+    }
+
+    /**
+     * Resolves every path of {@code entityClass} now, failing on the first invalid one.
+     */
+    public FieldPathRegistry register(Class<?> entityClass, String... fields) {
+        for (String field: fields) {
+            resolve(entityClass, field);
+        }
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a segment of {@code field} is not an attribute, or a segment before
+     *                                  the last is not an association or embeddable
+     */
+    public FieldPath resolve(Class<?> entityClass, String field) {
+        Map<String, FieldPath> byPath = paths.computeIfAbsent(entityClass, c -> new ConcurrentHashMap<>());
+        FieldPath path = byPath.get(field);
+        if (path == null) {
+            path = parse(entityClass, field);
+            byPath.put(field, path);
+        }
+        return path;
+    }
+
+    /**
+     * Resolves the field of every applied predicate in {@code builder} and checks its values against the
+     * attribute type: text operations need a String attribute, and other values must be instances of the
+     * attribute type, a Number that fits a numeric attribute exactly or a Date for a date attribute. Numbers and
+     * dates of another type are converted with {@link Values#convert}, so that parameters are bound with the
+     * attribute type and trees differing only in value types share a query shape. The condition of an
+     * {@link PredicateBuilder#exists} node is checked against the element type of its path.
+     *
+     * @return {@code builder}, or a copy with converted values if any needed converting
+     * @throws IllegalArgumentException for the first invalid field or value
+     */
+    public PredicateBuilder validate(Class<?> entityClass, PredicateBuilder builder) {
+        if (builder.isExists()) {
+            PredicateBuilder condition = validate(resolve(entityClass, builder.getExistsPath()).getJavaType(),
+                    builder.getExistsCondition());
+            return condition == builder.getExistsCondition() ? builder : builder.withExistsCondition(condition);
+        }
+        boolean converted = false;
+        List<PredicateBuilder> builders = new ArrayList<>(builder.getBuilders().size());
+        for (PredicateBuilder child: builder.getBuilders()) {
+            PredicateBuilder validated = validate(entityClass, child);
+            converted |= validated != child;
+            builders.add(validated);
+        }
+        List<CustomPredicate> predicates = new ArrayList<>(builder.getPredicates().size());
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            CustomPredicate validated = validate(entityClass, predicate);
+            converted |= validated != predicate;
+            predicates.add(validated);
+        }
+        if (!converted) {
+            return builder;
+        }
+        PredicateBuilder copy = new PredicateBuilder(builder.getConjunctionType());
+        for (PredicateBuilder child: builders) {
+            copy.addBuilder(child);
+        }
+        for (CustomPredicate predicate: predicates) {
+            copy.addPredicate(predicate);
+        }
+        return copy;
+    }
+
+    private CustomPredicate validate(Class<?> entityClass, CustomPredicate predicate) {
+        if (predicate.getField() == null || predicate.getValue() == null) {
+            return predicate;
+        }
+        FieldPath path = resolve(entityClass, predicate.getField());
+        switch (predicate.getOperation()) {
+            case LIKE:
+            case STRING_EQUALS:
+            case STARTS_WITH:
+            case ENDS_WITH:
+            case CONTAINS:
+                if (path.getJavaType() != String.class) {
+                    throw new IllegalArgumentException(predicate.getOperation() + " needs a String attribute but "
+                            + path + " is " + path.getJavaType().getName());
+                }
+                check(path, predicate.getValue());
+                return predicate;
+            case BETWEEN:
+            case IN:
+                Comparable value = check(path, predicate.getValue());
+                boolean converted = value != predicate.getValue();
+                List<Comparable> otherValues = new ArrayList<>(predicate.getOtherValues().size());
+                for (Comparable otherValue: predicate.getOtherValues()) {
+                    Comparable checked = otherValue == null ? null : check(path, otherValue);
+                    converted |= checked != otherValue;
+                    otherValues.add(checked);
+                }
+                return converted ? copy(predicate, value, otherValues) : predicate;
+            default:
+                value = check(path, predicate.getValue());
+                return value != predicate.getValue() ? copy(predicate, value, predicate.getOtherValues()) : predicate;
+        }
+    }
+
+    private static CustomPredicate copy(CustomPredicate predicate, Comparable value, List<Comparable> otherValues) {
+        CustomPredicate copy = new CustomPredicate(predicate.getField(), value, predicate.getOperation(),
+                predicate.isNegate());
+        copy.setCaseFolding(predicate.getCaseFolding());
+        for (Comparable otherValue: otherValues) {
+            copy.addOtherValue(otherValue);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns {@code value} as an instance of the attribute type.
+     */
+    private static Comparable check(FieldPath path, Comparable value) {
+        Class<?> type = Values.wrap(path.getJavaType());
+        Object converted;
+        try {
+            converted = Values.convert(value, type);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Value " + value + " (" + value.getClass().getName()
+                    + ") does not fit " + path + " of type " + type.getName(), ex);
+        }
+        if (converted == null) {
+            throw new IllegalArgumentException("Value " + value + " (" + value.getClass().getName() + ") does not match "
+                    + path + " of type " + type.getName());
+        }
+        return (Comparable) converted;
+    }
+
+    private FieldPath parse(Class<?> entityClass, String field) {
+        String[] segments = field.split("\\.");
+        Attribute.PersistentAttributeType[] attributeTypes = new Attribute.PersistentAttributeType[segments.length];
+        ManagedType<?> owner = metamodel.managedType(entityClass);
+        Class<?> javaType = null;
+        boolean collection = false;
+        for (int i = 0; i < segments.length; i++) {
+            Attribute<?, ?> attribute = attribute(owner, segments[i], entityClass, field);
+            attributeTypes[i] = attribute.getPersistentAttributeType();
+            Type<?> type;
+            if (attribute instanceof PluralAttribute) {
+                collection = true;
+                type = ((PluralAttribute<?, ?, ?>) attribute).getElementType();
+            } else {
+                type = ((SingularAttribute<?, ?>) attribute).getType();
+            }
+            javaType = type.getJavaType();
+            if (i < segments.length - 1) {
+                if (!(type instanceof ManagedType)) {
+                    throw new IllegalArgumentException("Cannot navigate through " + segments[i] + " of "
+                            + owner.getJavaType().getSimpleName() + " in " + entityClass.getSimpleName() + "." + field
+                            + ": it is not an association or embeddable");
+                }
+                owner = (ManagedType<?>) type;
+            }
+        }
+        return new FieldPath(entityClass, field, segments, attributeTypes, javaType, collection);
+    }
+
+    private static Attribute<?, ?> attribute(ManagedType<?> owner, String name, Class<?> entityClass, String field) {
+        for (Attribute<?, ?> attribute: owner.getAttributes()) {
+            if (attribute.getName().equals(name)) {
+                return attribute;
+            }
+        }
+        TreeSet<String> names = new TreeSet<>();
+        for (Attribute<?, ?> attribute: owner.getAttributes()) {
+            names.add(attribute.getName());
+        }
+        throw new IllegalArgumentException("No attribute " + name + " on " + owner.getJavaType().getSimpleName()
+                + " in " + entityClass.getSimpleName() + "." + field + "; attributes are " + names);
+    }
+}
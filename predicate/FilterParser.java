@@ -0,0 +1,433 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses filter expressions into {@link PredicateBuilder} trees, e.g.
+ * <pre>
+ * amount&gt;=100 AND (status IN (PAID, SETTLED) OR biller.code~"ABC%")
+ * </pre>
+ * A comparison is a field path, an operator and a value: {@code =}, {@code !=}, {@code ==} (EQUALS_EXACT),
+ * {@code <}, {@code <=}, {@code >}, {@code >=}, {@code ~} (LIKE), {@code ~=} (STRING_EQUALS), {@code ^=}
+ * (STARTS_WITH), {@code $=} (ENDS_WITH), {@code *=} (CONTAINS), {@code IN (a, b)} and {@code BETWEEN a AND b},
+ * any of them negated by a preceding {@code NOT}. AND binds tighter than OR and parentheses group; keywords
+ * are case-insensitive. Values are double-quoted strings, with {@code \"} and {@code \\} escapes, or bare
+ * words up to whitespace or one of {@code ( ) , " = ! < > ~}; an unquoted {@code null} is a null value.
+ * <p>
+ * Given an entity class and a {@link FieldPathRegistry}, values are converted to the attribute type with
+ * {@link Values#parse(String, Class)} and unknown fields are rejected. Otherwise bare integers become Long,
+ * other bare numbers BigDecimal, {@code true} and {@code false} Boolean, and everything else String.
+ * <p>
+ * Parsed trees are kept as {@link ConditionTree}s in a least recently used cache keyed by entity class and
+ * filter text; every call returns a new builder, so callers may modify it.
+ *
+ * @see FilterPrinter
+ */
+public class FilterParser {
+    private final FieldPathRegistry fieldPaths;
+    private final int cacheSize;
+    private final Map<Object, ConditionTree> cache;
+
+    /**
+     * A parser without attribute types or cache.
+     */
+    public FilterParser() {
+        this(null, 0);
+    }
+
+    /**
+     * @param fieldPaths resolves attribute types; may be null
+     * @param cacheSize  the number of parsed filters to keep, 0 for none
+     */
+    public FilterParser(FieldPathRegistry fieldPaths, int cacheSize) {
+        this.fieldPaths = fieldPaths;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<Object, ConditionTree>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, ConditionTree> eldest) {
+                return size() > FilterParser.this.cacheSize;
+            }
+        };
+    }
+
+    public PredicateBuilder parse(String filter) {
+        return parse(null, filter);
+    }
+
+    /**
+     * @param entityClass the class the filter applies to, for attribute types; may be null
+     * @throws IllegalArgumentException with the position of the first syntax error, unknown field or value
+     *                                  that cannot be converted
+     */
+    public PredicateBuilder parse(Class<?> entityClass, String filter) {
+        if (cacheSize <= 0) {
+            return new Parser(filter, fieldPaths == null ? null : entityClass, fieldPaths).parse();
+        }
+        return parseTree(entityClass, filter).toPredicateBuilder();
+    }
+
+    /**
+     * Like {@link #parse(Class, String)}, returning the cached immutable tree.
+     */
+    public ConditionTree parseTree(Class<?> entityClass, String filter) {
+        Object key = Arrays.asList(entityClass, filter);
+        ConditionTree tree;
+        synchronized (cache) {
+            tree = cache.get(key);
+        }
+        if (tree == null) {
+            tree = ConditionTree.of(new Parser(filter, fieldPaths == null ? null : entityClass, fieldPaths).parse());
+            if (cacheSize > 0) {
+                synchronized (cache) {
+                    cache.put(key, tree);
+                }
+            }
+        }
+        return tree;
+    }
+
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * The operator {@link FilterPrinter} writes for {@code operation}.
+     */
+    static String symbol(Operation operation) {
+        switch (operation) {
+            case EQUALS:
+                return "=";
+            case EQUALS_EXACT:
+                return "==";
+            case LESS:
+                return "<";
+            case LESS_OR_EQUAL:
+                return "<=";
+            case GREATER:
+                return ">";
+            case GREATER_OR_EQUAL:
+                return ">=";
+            case LIKE:
+                return "~";
+            case STRING_EQUALS:
+                return "~=";
+            case STARTS_WITH:
+                return "^=";
+            case ENDS_WITH:
+                return "$=";
+            case CONTAINS:
+                return "*=";
+            case IN:
+                return "IN";
+            case BETWEEN:
+                return "BETWEEN";
+            default:
+                throw new IllegalArgumentException("No filter operator for " + operation);
+        }
+    }
+
+    static boolean isSpecial(char c) {
+        return Character.isWhitespace(c) || c == '(' || c == ')' || c == ',' || c == '"' || c == '='
+                || c == '!' || c == '<' || c == '>' || c == '~';
+    }
+
+    /**
+     * A single pass over the text with one character of lookahead; only field names and values are copied out.
+     */
+    private static final class Parser {
+        private final String text;
+        private final Class<?> entityClass;
+        private final FieldPathRegistry fieldPaths;
+        private int pos;
+
+        Parser(String text, Class<?> entityClass, FieldPathRegistry fieldPaths) {
+            this.text = text;
+            this.entityClass = entityClass;
+            this.fieldPaths = fieldPaths;
+        }
+
+        PredicateBuilder parse() {
+            skipWhitespace();
+            if (pos == text.length()) {
+                return new PredicateBuilder();
+            }
+            PredicateBuilder builder = parseOr();
+            skipWhitespace();
+            if (pos < text.length()) {
+                throw error("Unexpected '" + text.charAt(pos) + "'");
+            }
+            return builder;
+        }
+
+        private PredicateBuilder parseOr() {
+            PredicateBuilder first = parseAnd();
+            if (!acceptKeyword("OR")) {
+                return first;
+            }
+            PredicateBuilder or = new PredicateBuilder(ConjunctionType.OR);
+            addOperand(or, first);
+            do {
+                addOperand(or, parseAnd());
+            } while (acceptKeyword("OR"));
+            return or;
+        }
+
+        private static void addOperand(PredicateBuilder or, PredicateBuilder operand) {
+            if (operand.getConjunctionType() == ConjunctionType.AND && operand.getBuilders().isEmpty()
+                    && operand.getPredicates().size() == 1) {
+                or.addPredicate(operand.getPredicates().get(0));
+            } else {
+                or.addBuilder(operand);
+            }
+        }
+
+        /**
+         * Returns a parenthesized group on its own as is, so that printed trees parse back to the same shape.
+         */
+        private PredicateBuilder parseAnd() {
+            Object first = parseTerm();
+            if (!acceptKeyword("AND")) {
+                return first instanceof PredicateBuilder ? (PredicateBuilder) first
+                        : new PredicateBuilder().addPredicate((CustomPredicate) first);
+            }
+            PredicateBuilder and = new PredicateBuilder();
+            addTerm(and, first);
+            do {
+                addTerm(and, parseTerm());
+            } while (acceptKeyword("AND"));
+            return and;
+        }
+
+        private static void addTerm(PredicateBuilder and, Object term) {
+            if (term instanceof PredicateBuilder) {
+                and.addBuilder((PredicateBuilder) term);
+            } else {
+                and.addPredicate((CustomPredicate) term);
+            }
+        }
+
+        private Object parseTerm() {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == '(') {
+                pos++;
+                PredicateBuilder group = parseOr();
+                expect(')');
+                return group;
+            }
+            return parseComparison();
+        }
+
+        private CustomPredicate parseComparison() {
+            skipWhitespace();
+            int fieldStart = pos;
+            String field = parseField();
+            boolean negate = acceptKeyword("NOT");
+            Operation operation;
+            if (acceptKeyword("IN")) {
+                operation = Operation.IN;
+            } else if (acceptKeyword("BETWEEN")) {
+                operation = Operation.BETWEEN;
+            } else if (accept("!=")) {
+                operation = Operation.EQUALS;
+                negate = !negate;
+            } else {
+                operation = parseOperator();
+            }
+            Class<?> type = type(field, fieldStart, operation);
+            CustomPredicate predicate;
+            if (operation == Operation.IN) {
+                expect('(');
+                predicate = new CustomPredicate(field, parseValue(type), operation, negate);
+                while (accept(",")) {
+                    predicate.addOtherValue(parseValue(type));
+                }
+                expect(')');
+            } else if (operation == Operation.BETWEEN) {
+                predicate = new CustomPredicate(field, parseValue(type), operation, negate);
+                if (!acceptKeyword("AND")) {
+                    throw error("Expected AND");
+                }
+                predicate.addOtherValue(parseValue(type));
+            } else {
+                predicate = new CustomPredicate(field, parseValue(type), operation, negate);
+            }
+            return predicate;
+        }
+
+        private String parseField() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (!(Character.isLetter(c) || c == '_' || pos > start && (Character.isDigit(c) || c == '.'))) {
+                    break;
+                }
+                pos++;
+            }
+            if (pos == start) {
+                throw error("Expected a field name");
+            }
+            return text.substring(start, pos);
+        }
+
+        private Operation parseOperator() {
+            skipWhitespace();
+            if (accept("<=")) return Operation.LESS_OR_EQUAL;
+            if (accept(">=")) return Operation.GREATER_OR_EQUAL;
+            if (accept("==")) return Operation.EQUALS_EXACT;
+            if (accept("~=")) return Operation.STRING_EQUALS;
+            if (accept("^=")) return Operation.STARTS_WITH;
+            if (accept("$=")) return Operation.ENDS_WITH;
+            if (accept("*=")) return Operation.CONTAINS;
+            if (accept("<")) return Operation.LESS;
+            if (accept(">")) return Operation.GREATER;
+            if (accept("=")) return Operation.EQUALS;
+            if (accept("~")) return Operation.LIKE;
+            throw error("Expected an operator");
+        }
+
+        private Class<?> type(String field, int fieldStart, Operation operation) {
+            if (entityClass == null) {
+                return null;
+            }
+            try {
+                Class<?> type = fieldPaths.resolve(entityClass, field).getJavaType();
+                switch (operation) {
+                    case LIKE:
+                    case STRING_EQUALS:
+                    case STARTS_WITH:
+                    case ENDS_WITH:
+                    case CONTAINS:
+                        return String.class;
+                    default:
+                        return type;
+                }
+            } catch (IllegalArgumentException e) {
+                pos = fieldStart;
+                throw error(e.getMessage());
+            }
+        }
+
+        private Comparable parseValue(Class<?> type) {
+            skipWhitespace();
+            int start = pos;
+            String value;
+            boolean quoted = pos < text.length() && text.charAt(pos) == '"';
+            if (quoted) {
+                value = parseQuoted();
+            } else {
+                while (pos < text.length() && !isSpecial(text.charAt(pos))) {
+                    pos++;
+                }
+                if (pos == start) {
+                    throw error("Expected a value");
+                }
+                value = text.substring(start, pos);
+                if (value.equalsIgnoreCase("null")) {
+                    return null;
+                }
+            }
+            if (type == null) {
+                return quoted ? value : infer(value);
+            }
+            try {
+                return (Comparable) Values.parse(value, type);
+            } catch (RuntimeException e) {
+                pos = start;
+                throw error("Cannot convert " + value + " to " + type.getName());
+            }
+        }
+
+        private String parseQuoted() {
+            int start = ++pos;
+            StringBuilder escaped = null;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '"') {
+                    String value = escaped == null ? text.substring(start, pos) : escaped.toString();
+                    pos++;
+                    return value;
+                }
+                if (c == '\\') {
+                    if (escaped == null) escaped = new StringBuilder(text.substring(start, pos));
+                    if (++pos == text.length()) break;
+                    c = text.charAt(pos);
+                }
+                if (escaped != null) escaped.append(c);
+                pos++;
+            }
+            pos = start - 1;
+            throw error("Unterminated string");
+        }
+
+        private static Comparable infer(String value) {
+            if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                return Boolean.valueOf(value);
+            }
+            int i = value.charAt(0) == '-' && value.length() > 1 ? 1 : 0;
+            boolean digits = true;
+            boolean number = false;
+            for (; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    number = true;
+                } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                    digits = false;
+                } else {
+                    return value;
+                }
+            }
+            if (!number) {
+                return value;
+            }
+            try {
+                return digits && value.length() < 19 ? (Comparable) Long.valueOf(value) : new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            skipWhitespace();
+            int end = pos + keyword.length();
+            if (text.regionMatches(true, pos, keyword, 0, keyword.length())
+                    && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)) && text.charAt(end) != '_')) {
+                pos = end;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean accept(String symbol) {
+            skipWhitespace();
+            if (text.startsWith(symbol, pos)) {
+                pos += symbol.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            skipWhitespace();
+            if (pos == text.length() || text.charAt(pos) != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in filter: " + text);
+        }
+    }
+}
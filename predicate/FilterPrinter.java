@@ -0,0 +1,111 @@
+package com.upperlink.billerservice.repository.predicate;
+
+/**
+ * Writes {@link PredicateBuilder} trees in the syntax read by {@link FilterParser}. Parsing the text with the
+ * entity class the tree applies to gives back an equal tree, except that case folding is not written,
+ * predicates without a field are left out as they are never applied, and a nested group of a single predicate
+ * comes back as an AND group. {@link PredicateBuilder#exists} conditions have no filter syntax.
+ */
+public final class FilterPrinter {
+
+    private FilterPrinter() {
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unsatisfiable tree or one with an EXISTS condition, which have no
+     *                                  filter syntax
+     */
+    public static String print(PredicateBuilder builder) {
+        StringBuilder text = new StringBuilder();
+        append(builder, text);
+        return text.toString();
+    }
+
+    private static void append(PredicateBuilder builder, StringBuilder text) {
+        if (builder.isUnsatisfiable()) {
+            throw new IllegalArgumentException("An unsatisfiable filter cannot be printed");
+        }
+        if (builder.isExists()) {
+            throw new IllegalArgumentException("EXISTS on " + builder.getExistsPath() + " cannot be printed");
+        }
+        String separator = builder.getConjunctionType() == ConjunctionType.OR ? " OR " : " AND ";
+        boolean first = true;
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            if (predicate.getField() == null) {
+                continue;
+            }
+            if (!first) text.append(separator);
+            append(predicate, text);
+            first = false;
+        }
+        for (PredicateBuilder child: builder.getBuilders()) {
+            if (child.isEmpty()) {
+                continue;
+            }
+            if (!first) text.append(separator);
+            text.append('(');
+            append(child, text);
+            text.append(')');
+            first = false;
+        }
+    }
+
+    private static void append(CustomPredicate predicate, StringBuilder text) {
+        text.append(predicate.getField());
+        Operation operation = predicate.getOperation();
+        if (operation == Operation.EQUALS && predicate.isNegate()) {
+            text.append(" != ");
+            appendValue(predicate.getValue(), text);
+            return;
+        }
+        if (predicate.isNegate()) text.append(" NOT");
+        text.append(' ').append(FilterParser.symbol(operation)).append(' ');
+        if (operation == Operation.IN) {
+            text.append('(');
+            appendValue(predicate.getValue(), text);
+            for (Object value: predicate.getOtherValues()) {
+                text.append(", ");
+                appendValue(value, text);
+            }
+            text.append(')');
+        } else if (operation == Operation.BETWEEN) {
+            appendValue(predicate.getValue(), text);
+            text.append(" AND ");
+            appendValue(predicate.getOtherValues().get(0), text);
+        } else {
+            appendValue(predicate.getValue(), text);
+        }
+    }
+
+    /**
+     * Quotes strings, and any other value whose text would not read back as a single bare word.
+     */
+    private static void appendValue(Object value, StringBuilder text) {
+        if (value == null) {
+            text.append("null");
+            return;
+        }
+        String formatted = Values.format(value);
+        if (!(value instanceof String) && isBare(formatted)) {
+            text.append(formatted);
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < formatted.length(); i++) {
+            char c = formatted.charAt(i);
+            if (c == '"' || c == '\\') text.append('\\');
+            text.append(c);
+        }
+        text.append('"');
+    }
+
+    private static boolean isBare(String formatted) {
+        if (formatted.isEmpty() || formatted.equalsIgnoreCase("null")) {
+            return false;
+        }
+        for (int i = 0; i < formatted.length(); i++) {
+            if (FilterParser.isSpecial(formatted.charAt(i))) return false;
+        }
+        return true;
+    }
+}
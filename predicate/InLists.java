@@ -0,0 +1,143 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites IN predicates with many values: padding lists to power of two lengths and splitting a tree on one
+ * large IN into several trees whose results together are those of the original.
+ */
+public final class InLists {
+
+    private InLists() {
+    }
+
+    /**
+     * Returns {@code builder} with every IN list padded to the next power of two by repeating its last value, but
+     * to no more than {@code limit} values, or {@code builder} itself when no list needs padding. Lists already
+     * longer than {@code limit} are left as they are. The input tree is not modified.
+     */
+    public static PredicateBuilder pad(PredicateBuilder builder, int limit) {
+        if (builder.isUnsatisfiable() || !needsPadding(builder, limit)) {
+            return builder;
+        }
+        if (builder.isExists()) {
+            return builder.withExistsCondition(pad(builder.getExistsCondition(), limit));
+        }
+        PredicateBuilder padded = new PredicateBuilder(builder.getConjunctionType());
+        for (PredicateBuilder child: builder.getBuilders()) {
+            padded.addBuilder(pad(child, limit));
+        }
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            padded.addPredicate(isIn(predicate) ? pad(predicate, limit) : predicate);
+        }
+        return padded;
+    }
+
+    /**
+     * Returns the non-negated IN predicate with the most values, more than {@code threshold}, that every result
+     * of {@code builder} must satisfy, or null if there is none.
+     */
+    public static CustomPredicate findSplittable(PredicateBuilder builder, int threshold) {
+        if (threshold <= 0 || builder.isUnsatisfiable()) {
+            return null;
+        }
+        int terms = builder.getBuilders().size() + builder.getPredicates().size();
+        if (builder.getConjunctionType() != ConjunctionType.AND && terms > 1) {
+            return null;
+        }
+        CustomPredicate largest = null;
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            if (isIn(predicate) && !predicate.isNegate() && size(predicate) > threshold
+                    && (largest == null || size(predicate) > size(largest))) {
+                largest = predicate;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Splits {@code builder} into one tree per {@code chunkSize} values of {@code in}, a predicate returned by
+     * {@link #findSplittable}. Each row matching {@code builder} matches at least one of the trees.
+     */
+    public static List<PredicateBuilder> split(PredicateBuilder builder, CustomPredicate in, int chunkSize) {
+        List<Comparable> values = new ArrayList<>(size(in));
+        values.add(in.getValue());
+        for (Comparable value: in.getOtherValues()) {
+            if (value != null) values.add(value);
+        }
+        List<PredicateBuilder> chunks = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += chunkSize) {
+            List<Comparable> chunk = values.subList(start, Math.min(start + chunkSize, values.size()));
+            CustomPredicate chunkPredicate = new CustomPredicate(in.getField(), chunk.get(0), Operation.IN);
+            for (int i = 1; i < chunk.size(); i++) {
+                chunkPredicate.addOtherValue(chunk.get(i));
+            }
+            PredicateBuilder chunkBuilder = new PredicateBuilder(ConjunctionType.AND);
+            for (PredicateBuilder child: builder.getBuilders()) {
+                chunkBuilder.addBuilder(child);
+            }
+            for (CustomPredicate predicate: builder.getPredicates()) {
+                chunkBuilder.addPredicate(predicate == in ? chunkPredicate : predicate);
+            }
+            chunks.add(chunkBuilder);
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the smallest power of two not less than {@code size}.
+     */
+    public static int bucket(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static boolean needsPadding(PredicateBuilder builder, int limit) {
+        if (builder.isExists()) {
+            return needsPadding(builder.getExistsCondition(), limit);
+        }
+        for (PredicateBuilder child: builder.getBuilders()) {
+            if (needsPadding(child, limit)) return true;
+        }
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            if (isIn(predicate) && size(predicate) != paddedSize(size(predicate), limit)) return true;
+        }
+        return false;
+    }
+
+    private static int paddedSize(int size, int limit) {
+        return Math.max(size, Math.min(bucket(size), limit));
+    }
+
+    private static CustomPredicate pad(CustomPredicate in, int limit) {
+        int size = size(in);
+        int bucket = paddedSize(size, limit);
+        if (size == bucket) {
+            return in;
+        }
+        CustomPredicate padded = new CustomPredicate(in.getField(), in.getValue(), Operation.IN, in.isNegate());
+        Comparable last = in.getValue();
+        for (Comparable value: in.getOtherValues()) {
+            if (value != null) {
+                padded.addOtherValue(value);
+                last = value;
+            }
+        }
+        for (int i = size; i < bucket; i++) {
+            padded.addOtherValue(last);
+        }
+        return padded;
+    }
+
+    private static boolean isIn(CustomPredicate predicate) {
+        return predicate.getOperation() == Operation.IN && predicate.getField() != null && predicate.getValue() != null;
+    }
+
+    private static int size(CustomPredicate in) {
+        int size = 1;
+        for (Comparable value: in.getOtherValues()) {
+            if (value != null) size++;
+        }
+        return size;
+    }
+}
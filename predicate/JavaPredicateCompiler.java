@@ -0,0 +1,639 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles a {@link PredicateBuilder} tree into a {@link Predicate} over objects already in memory, with the
+ * same meaning as the query {@link PredicateBuilder#build} produces:
+ * <ul>
+ *     <li>a null attribute, or a null association on the way to it, never matches, negated or not;</li>
+ *     <li>a collection on a dotted path matches if any of its elements does;</li>
+ *     <li>an {@link PredicateBuilder#exists} condition matches if one element matches all of it;</li>
+ *     <li>text operations ignore case unless their {@link CaseFolding} is NONE.</li>
+ * </ul>
+ * Unlike the SQL join shared by predicates on the same to-many path, each predicate here is matched against
+ * the collection on its own.
+ * <p>
+ * Attributes are read through getters bound once with {@link LambdaMetafactory}, falling back to method
+ * handles for fields and inaccessible getters. Integral and floating attributes are compared as primitives
+ * against constants converted when compiling, so testing a row does not allocate.
+ */
+public final class JavaPredicateCompiler {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private static final ClassValue<ConcurrentMap<String, Property>> PROPERTIES =
+            new ClassValue<ConcurrentMap<String, Property>>() {
+                @Override
+                protected ConcurrentMap<String, Property> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private JavaPredicateCompiler() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Predicate<T> compile(PredicateBuilder builder, Class<T> clazz) {
+        return (Predicate<T>) compileNode(builder, clazz);
+    }
+
+    /**
+     * Returns a comparator ordering objects as {@code orderBy} orders rows, nulls last when ascending and first
+     * when descending, e.g. to merge the results of several queries. Paths must not cross collections.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Comparator<T> comparator(List<OrderBy> orderBy, Class<T> clazz) {
+        Comparator<Object> comparator = null;
+        for (OrderBy order: orderBy) {
+            String[] segments = order.getField().split("\\.");
+            Property[] chain = new Property[segments.length];
+            Class<?> owner = clazz;
+            for (int i = 0; i < segments.length; i++) {
+                chain[i] = property(owner, segments[i]);
+                if (chain[i].type != chain[i].elementType) {
+                    throw new IllegalArgumentException("Cannot order by collection " + order.getField());
+                }
+                owner = chain[i].type;
+            }
+            Function<Object, Object> get = row -> {
+                Object value = row;
+                for (int i = 0; i < chain.length && value != null; i++) {
+                    value = chain[i].get.apply(value);
+                }
+                return value;
+            };
+            Comparator<Object> values = Comparator.nullsLast(JavaPredicateCompiler::compareObjects);
+            Comparator<Object> next = Comparator.comparing(get, order.isAsc() ? values : values.reversed());
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        if (comparator == null) {
+            return (a, b) -> 0;
+        }
+        return (Comparator<T>) comparator;
+    }
+
+    /**
+     * Returns a getter for the integral attribute at {@code field}, resolved once and reading a primitive
+     * {@code long} without boxing when the attribute is primitive.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ToLongFunction<T> longGetter(Class<T> clazz, String field) {
+        String[] segments = field.split("\\.");
+        Function<Object, Object>[] path = new Function[segments.length - 1];
+        Class<?> owner = clazz;
+        Property property = null;
+        for (int i = 0; i < segments.length; i++) {
+            property = property(owner, segments[i]);
+            if (property.type != property.elementType) {
+                throw new IllegalArgumentException("Cannot read a key through collection " + field);
+            }
+            if (i < path.length) path[i] = property.get;
+            owner = property.type;
+        }
+        if (property.kind != Kind.LONG) {
+            throw new IllegalArgumentException(field + " of " + clazz.getName() + " is not integral");
+        }
+        Property leaf = property;
+        ToLongFunction<Object> read = leaf.getLong != null ? leaf.getLong
+                : row -> ((Number) leaf.get.apply(row)).longValue();
+        if (path.length == 0) {
+            return (ToLongFunction<T>) read;
+        }
+        return row -> {
+            Object value = row;
+            for (Function<Object, Object> get: path) {
+                value = get.apply(value);
+            }
+            return read.applyAsLong(value);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate<Object> compileNode(PredicateBuilder builder, Class<?> clazz) {
+        if (builder.isUnsatisfiable()) {
+            return row -> false;
+        }
+        if (builder.isExists()) {
+            return compileExists(builder, clazz);
+        }
+        List<Predicate<Object>> terms = new ArrayList<>();
+        for (PredicateBuilder child: builder.getBuilders()) {
+            if (!child.isEmpty()) {
+                terms.add(compileNode(child, clazz));
+            }
+        }
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            if (predicate.getField() != null && predicate.getValue() != null) {
+                terms.add(compilePredicate(predicate, clazz));
+            }
+        }
+        if (terms.isEmpty()) {
+            return row -> true;
+        }
+        if (terms.size() == 1) {
+            return terms.get(0);
+        }
+        Predicate<Object>[] array = terms.toArray(new Predicate[0]);
+        if (builder.getConjunctionType() == ConjunctionType.AND) {
+            return row -> {
+                for (Predicate<Object> term: array) {
+                    if (!term.test(row)) return false;
+                }
+                return true;
+            };
+        }
+        return row -> {
+            for (Predicate<Object> term: array) {
+                if (term.test(row)) return true;
+            }
+            return false;
+        };
+    }
+
+    private static Predicate<Object> compileExists(PredicateBuilder builder, Class<?> clazz) {
+        String[] segments = builder.getExistsPath().split("\\.");
+        Property[] chain = new Property[segments.length];
+        Class<?> owner = clazz;
+        for (int i = 0; i < segments.length; i++) {
+            chain[i] = property(owner, segments[i]);
+            owner = chain[i].elementType;
+        }
+        Predicate<Object> test = compileNode(builder.getExistsCondition(), owner);
+        for (int i = chain.length - 1; i >= 0; i--) {
+            test = navigate(chain[i].get, test);
+        }
+        return builder.isExistsNegated() ? test.negate() : test;
+    }
+
+    private static Predicate<Object> compilePredicate(CustomPredicate predicate, Class<?> clazz) {
+        String[] segments = predicate.getField().split("\\.");
+        Property[] chain = new Property[segments.length];
+        Class<?> owner = clazz;
+        for (int i = 0; i < segments.length; i++) {
+            chain[i] = property(owner, segments[i]);
+            owner = chain[i].elementType;
+        }
+        Predicate<Object> test = compileLeaf(predicate, chain[chain.length - 1]);
+        for (int i = chain.length - 2; i >= 0; i--) {
+            test = navigate(chain[i].get, test);
+        }
+        return test;
+    }
+
+    private static Predicate<Object> navigate(Function<Object, Object> getter, Predicate<Object> next) {
+        return owner -> {
+            Object value = getter.apply(owner);
+            if (value == null) return false;
+            if (value instanceof Collection) {
+                for (Object element: (Collection<?>) value) {
+                    if (element != null && next.test(element)) return true;
+                }
+                return false;
+            }
+            return next.test(value);
+        };
+    }
+
+    private static Predicate<Object> compileLeaf(CustomPredicate predicate, Property property) {
+        boolean negate = predicate.isNegate();
+        switch (predicate.getOperation()) {
+            case LIKE:
+                return like(property.get, (String) predicate.getValue(), ignoresCase(predicate), negate);
+            case STRING_EQUALS:
+                return text(property.get, (String) predicate.getValue(), false, false, ignoresCase(predicate), negate);
+            case STARTS_WITH:
+                return text(property.get, (String) predicate.getValue(), false, true, ignoresCase(predicate), negate);
+            case ENDS_WITH:
+                return text(property.get, (String) predicate.getValue(), true, false, ignoresCase(predicate), negate);
+            case CONTAINS:
+                return text(property.get, (String) predicate.getValue(), true, true, ignoresCase(predicate), negate);
+            case EQUALS:
+            case EQUALS_EXACT:
+                if (property.kind == Kind.OBJECT) {
+                    Object expected = coerce(predicate.getValue(), property.type);
+                    Function<Object, Object> get = property.get;
+                    return owner -> {
+                        Object value = get.apply(owner);
+                        return value != null && negate != objectEquals(value, expected);
+                    };
+                }
+                return test(comparison(property, predicate.getValue()), negate, c -> c == 0);
+            case LESS:
+                return test(comparison(property, predicate.getValue()), negate, c -> c < 0);
+            case LESS_OR_EQUAL:
+                return test(comparison(property, predicate.getValue()), negate, c -> c <= 0);
+            case GREATER:
+                return test(comparison(property, predicate.getValue()), negate, c -> c > 0);
+            case GREATER_OR_EQUAL:
+                return test(comparison(property, predicate.getValue()), negate, c -> c >= 0);
+            case BETWEEN: {
+                Comparison low = comparison(property, predicate.getValue());
+                Comparison high = comparison(property, predicate.getOtherValues().get(0));
+                return owner -> {
+                    int c = low.compare(owner);
+                    if (c == NO_VALUE) return false;
+                    return negate != (c >= 0 && high.compare(owner) <= 0);
+                };
+            }
+            case IN:
+                // SQL IN never matches a null operand, and PredicateBuilder leaves them out of the query
+                List<Object> values = new ArrayList<>();
+                if (predicate.getValue() != null) values.add(predicate.getValue());
+                for (Comparable value: predicate.getOtherValues()) {
+                    if (value != null) values.add(value);
+                }
+                return in(property, values, negate);
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + predicate.getOperation());
+        }
+    }
+
+    private interface Comparison {
+        /**
+         * @return the sign of attribute minus constant, or {@link #NO_VALUE} if the attribute is null
+         */
+        int compare(Object owner);
+    }
+
+    private interface Sign {
+        boolean matches(int comparison);
+    }
+
+    private static Predicate<Object> test(Comparison comparison, boolean negate, Sign sign) {
+        return owner -> {
+            int c = comparison.compare(owner);
+            return c != NO_VALUE && negate != sign.matches(c);
+        };
+    }
+
+    private static Comparison comparison(Property property, Object constant) {
+        switch (property.kind) {
+            case LONG:
+                if (isIntegral(constant)) {
+                    long expected = ((Number) constant).longValue();
+                    if (property.getLong != null) {
+                        ToLongFunction<Object> getLong = property.getLong;
+                        return owner -> Long.compare(getLong.applyAsLong(owner), expected);
+                    }
+                    Function<Object, Object> get = property.get;
+                    return owner -> {
+                        Object value = get.apply(owner);
+                        return value == null ? NO_VALUE : Long.compare(((Number) value).longValue(), expected);
+                    };
+                }
+                return doubleComparison(property, constant);
+            case DOUBLE:
+                return doubleComparison(property, constant);
+            case DECIMAL: {
+                BigDecimal expected = toBigDecimal(constant);
+                Function<Object, Object> get = property.get;
+                return owner -> {
+                    Object value = get.apply(owner);
+                    return value == null ? NO_VALUE : Integer.signum(((BigDecimal) value).compareTo(expected));
+                };
+            }
+            default: {
+                Object expected = coerce(constant, property.type);
+                Function<Object, Object> get = property.get;
+                return owner -> {
+                    Object value = get.apply(owner);
+                    return value == null ? NO_VALUE : compareObjects(value, expected);
+                };
+            }
+        }
+    }
+
+    private static Comparison doubleComparison(Property property, Object constant) {
+        double expected = constant instanceof Number ? ((Number) constant).doubleValue()
+                : Double.parseDouble(constant.toString());
+        if (property.getDouble != null) {
+            ToDoubleFunction<Object> getDouble = property.getDouble;
+            return owner -> Integer.signum(Double.compare(getDouble.applyAsDouble(owner), expected));
+        }
+        if (property.getLong != null) {
+            ToLongFunction<Object> getLong = property.getLong;
+            return owner -> Integer.signum(Double.compare(getLong.applyAsLong(owner), expected));
+        }
+        Function<Object, Object> get = property.get;
+        return owner -> {
+            Object value = get.apply(owner);
+            return value == null ? NO_VALUE : Integer.signum(Double.compare(((Number) value).doubleValue(), expected));
+        };
+    }
+
+    private static Predicate<Object> in(Property property, List<Object> values, boolean negate) {
+        boolean integral = property.kind == Kind.LONG;
+        for (Object value: values) {
+            integral &= isIntegral(value);
+        }
+        if (integral) {
+            long[] expected = new long[values.size()];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = ((Number) values.get(i)).longValue();
+            }
+            Arrays.sort(expected);
+            if (property.getLong != null) {
+                ToLongFunction<Object> getLong = property.getLong;
+                return owner -> negate != (Arrays.binarySearch(expected, getLong.applyAsLong(owner)) >= 0);
+            }
+            Function<Object, Object> get = property.get;
+            return owner -> {
+                Object value = get.apply(owner);
+                return value != null && negate != (Arrays.binarySearch(expected, ((Number) value).longValue()) >= 0);
+            };
+        }
+        if (property.kind == Kind.OBJECT) {
+            Set<Object> expected = new HashSet<>();
+            for (Object value: values) {
+                expected.add(coerce(value, property.type));
+            }
+            Function<Object, Object> get = property.get;
+            return owner -> {
+                Object value = get.apply(owner);
+                return value != null && negate != expected.contains(value);
+            };
+        }
+        Comparison[] comparisons = new Comparison[values.size()];
+        for (int i = 0; i < comparisons.length; i++) {
+            comparisons[i] = comparison(property, values.get(i));
+        }
+        return owner -> {
+            for (Comparison comparison: comparisons) {
+                int c = comparison.compare(owner);
+                if (c == NO_VALUE) return false;
+                if (c == 0) return !negate;
+            }
+            return negate;
+        };
+    }
+
+    private static boolean ignoresCase(CustomPredicate predicate) {
+        return CaseFolding.of(predicate) != CaseFolding.NONE;
+    }
+
+    private static Predicate<Object> like(Function<Object, Object> get, String pattern, boolean ignoreCase,
+                                          boolean negate) {
+        boolean leading = pattern.startsWith("%");
+        boolean trailing = pattern.length() > (leading ? 1 : 0) && pattern.endsWith("%");
+        String literal = pattern.substring(leading ? 1 : 0, pattern.length() - (trailing ? 1 : 0));
+        if (literal.indexOf('%') < 0 && literal.indexOf('_') < 0) {
+            return text(get, literal, leading, trailing, ignoreCase, negate);
+        }
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '%') {
+                regex.append(".*");
+            } else if (c == '_') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        Pattern compiled = Pattern.compile(regex.toString(),
+                ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL : Pattern.DOTALL);
+        return owner -> {
+            Object value = get.apply(owner);
+            return value != null && negate != compiled.matcher(value.toString()).matches();
+        };
+    }
+
+    /**
+     * Matches {@code literal} anywhere after the start when {@code leading} and before the end when
+     * {@code trailing}, e.g. both for CONTAINS.
+     */
+    private static Predicate<Object> text(Function<Object, Object> get, String literal, boolean leading,
+                                          boolean trailing, boolean ignoreCase, boolean negate) {
+        int length = literal.length();
+        return owner -> {
+            Object value = get.apply(owner);
+            if (value == null) return false;
+            String text = value.toString();
+            boolean matches;
+            if (leading && trailing) {
+                matches = false;
+                for (int i = 0; i + length <= text.length() && !matches; i++) {
+                    matches = text.regionMatches(ignoreCase, i, literal, 0, length);
+                }
+            } else if (leading) {
+                matches = text.length() >= length
+                        && text.regionMatches(ignoreCase, text.length() - length, literal, 0, length);
+            } else if (trailing) {
+                matches = text.regionMatches(ignoreCase, 0, literal, 0, length);
+            } else {
+                matches = ignoreCase ? text.equalsIgnoreCase(literal) : text.equals(literal);
+            }
+            return negate != matches;
+        };
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger && ((BigInteger) value).bitLength() < 64;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof BigDecimal) return (BigDecimal) value;
+        if (isIntegral(value)) return BigDecimal.valueOf(((Number) value).longValue());
+        if (value instanceof Number) return BigDecimal.valueOf(((Number) value).doubleValue());
+        return new BigDecimal(value.toString());
+    }
+
+    private static Object coerce(Object value, Class<?> type) {
+        if (type.isInstance(value) || !(value instanceof String)) {
+            return value;
+        }
+        try {
+            return Values.parse((String) value, type);
+        } catch (IllegalArgumentException ex) {
+            return value;
+        }
+    }
+
+    private static boolean objectEquals(Object value, Object expected) {
+        if (value instanceof Date && expected instanceof Date) {
+            return ((Date) value).getTime() == ((Date) expected).getTime();
+        }
+        return value.equals(expected);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareObjects(Object value, Object expected) {
+        if (value instanceof Date && expected instanceof Date) {
+            return Long.compare(((Date) value).getTime(), ((Date) expected).getTime());
+        }
+        return Integer.signum(((Comparable) value).compareTo(expected));
+    }
+
+    private enum Kind {
+        LONG, DOUBLE, DECIMAL, OBJECT
+    }
+
+    /**
+     * An attribute of one class, with the accessors bound once and shared by every compiled predicate.
+     */
+    private static final class Property {
+        final Class<?> type;
+        final Class<?> elementType;
+        final Kind kind;
+        final Function<Object, Object> get;
+        final ToLongFunction<Object> getLong;
+        final ToDoubleFunction<Object> getDouble;
+
+        Property(Class<?> type, Class<?> elementType, Function<Object, Object> get,
+                 ToLongFunction<Object> getLong, ToDoubleFunction<Object> getDouble) {
+            this.type = type;
+            this.elementType = elementType;
+            this.get = get;
+            this.getLong = getLong;
+            this.getDouble = getDouble;
+            Class<?> wrapped = Values.wrap(type);
+            if (wrapped == Long.class || wrapped == Integer.class || wrapped == Short.class || wrapped == Byte.class) {
+                kind = Kind.LONG;
+            } else if (wrapped == Double.class || wrapped == Float.class) {
+                kind = Kind.DOUBLE;
+            } else if (wrapped == BigDecimal.class) {
+                kind = Kind.DECIMAL;
+            } else {
+                kind = Kind.OBJECT;
+            }
+        }
+    }
+
+    private static Property property(Class<?> owner, String name) {
+        ConcurrentMap<String, Property> properties = PROPERTIES.get(owner);
+        Property property = properties.get(name);
+        if (property == null) {
+            property = resolve(owner, name);
+            properties.putIfAbsent(name, property);
+        }
+        return property;
+    }
+
+    private static Property resolve(Class<?> owner, String name) {
+        Method getter = findGetter(owner, name);
+        if (getter != null) {
+            return property(getter.getReturnType(), getter.getGenericReturnType(), getter, null);
+        }
+        for (Class<?> type = owner; type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return property(field.getType(), field.getGenericType(), null, field);
+            } catch (NoSuchFieldException ignored) {
+            }
+        }
+        throw new IllegalArgumentException("No property " + name + " on " + owner.getName());
+    }
+
+    private static Method findGetter(Class<?> owner, String name) {
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String prefix: new String[]{"get", "is"}) {
+            try {
+                Method method = owner.getMethod(prefix + suffix);
+                if (method.getReturnType() != void.class) {
+                    return method;
+                }
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Property property(Class<?> type, Type genericType, Method getter, Field field) {
+        Class<?> elementType = type;
+        if (Collection.class.isAssignableFrom(type)) {
+            elementType = Object.class;
+            if (genericType instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                if (argument instanceof Class) {
+                    elementType = (Class<?>) argument;
+                }
+            }
+        }
+        boolean integral = type == long.class || type == int.class || type == short.class || type == byte.class;
+        boolean floating = type == double.class || type == float.class;
+        try {
+            MethodHandle handle;
+            if (getter != null) {
+                try {
+                    return new Property(type, elementType,
+                            lambda(Function.class, "apply", MethodType.methodType(Object.class, Object.class), getter,
+                                    Values.wrap(type)),
+                            integral ? lambda(ToLongFunction.class, "applyAsLong",
+                                    MethodType.methodType(long.class, Object.class), getter, long.class) : null,
+                            floating ? lambda(ToDoubleFunction.class, "applyAsDouble",
+                                    MethodType.methodType(double.class, Object.class), getter, double.class) : null);
+                } catch (Throwable ex) {
+                    getter.setAccessible(true);
+                    handle = LOOKUP.unreflect(getter);
+                }
+            } else {
+                handle = LOOKUP.unreflectGetter(field);
+            }
+            MethodHandle object = handle.asType(MethodType.methodType(Object.class, Object.class));
+            MethodHandle asLong = integral ? handle.asType(MethodType.methodType(long.class, Object.class)) : null;
+            MethodHandle asDouble = floating ? handle.asType(MethodType.methodType(double.class, Object.class)) : null;
+            return new Property(type, elementType,
+                    owner -> {
+                        try {
+                            return (Object) object.invokeExact(owner);
+                        } catch (Throwable ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    },
+                    asLong == null ? null : owner -> {
+                        try {
+                            return (long) asLong.invokeExact(owner);
+                        } catch (Throwable ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    },
+                    asDouble == null ? null : owner -> {
+                        try {
+                            return (double) asDouble.invokeExact(owner);
+                        } catch (Throwable ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    });
+        } catch (IllegalAccessException ex) {
+            throw new IllegalArgumentException("Cannot access " + (getter != null ? getter : field), ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F> F lambda(Class<? super F> functionalInterface, String methodName, MethodType samType,
+                                Method getter, Class<?> returnType) throws Throwable {
+        MethodHandle target = LOOKUP.unreflect(getter);
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, methodName, MethodType.methodType(functionalInterface),
+                samType, target, MethodType.methodType(returnType, getter.getDeclaringClass()));
+        return (F) site.getTarget().invoke();
+    }
+}
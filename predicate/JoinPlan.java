@@ -0,0 +1,127 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import javax.persistence.criteria.JoinType;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Join type and fetch settings per association path, e.g. {@code "biller"} or {@code "biller.category"}.
+ * Paths not configured are joined with {@link JoinType#INNER} and not fetched.
+ * <p>
+ * As a fetch plan, associations are loaded with the query by fetch joins or a named entity graph, or after it
+ * by batch fetching, in one statement per association and batch of owners. A query that fetches by join or
+ * graph returns each root object once; fetch with {@link JoinType#LEFT} to keep roots without the association.
+ * Prefer batch fetching for collections of paged queries, since Hibernate applies the page in memory when a
+ * collection is fetch joined.
+ */
+public class JoinPlan {
+    private final Map<String, JoinType> joinTypes = new TreeMap<>();
+    private final Set<String> fetchPaths = new TreeSet<>();
+    private final Map<String, Integer> batchSizes = new TreeMap<>();
+    private String entityGraph;
+
+    public JoinPlan join(String path, JoinType joinType) {
+        joinTypes.put(path, joinType);
+        return this;
+    }
+
+    public JoinPlan leftJoin(String path) {
+        return join(path, JoinType.LEFT);
+    }
+
+    /**
+     * Fetch joins {@code path} and every path leading to it, since a fetched association needs its owner fetched.
+     */
+    public JoinPlan fetch(String path) {
+        int index = -1;
+        while ((index = path.indexOf('.', index + 1)) > 0) {
+            fetchPaths.add(path.substring(0, index));
+        }
+        fetchPaths.add(path);
+        return this;
+    }
+
+    public JoinPlan fetch(String path, JoinType joinType) {
+        join(path, joinType);
+        return fetch(path);
+    }
+
+    /**
+     * Loads the attributes of the named entity graph with the query, as a JPA load graph: attributes not in the
+     * graph keep their mapped fetch type.
+     */
+    public JoinPlan entityGraph(String name) {
+        this.entityGraph = name;
+        return this;
+    }
+
+    /**
+     * Loads the association at {@code path} of the objects returned, and of every path leading to it that is
+     * neither fetch joined nor batch fetched already, {@code batchSize} owners per statement.
+     */
+    public JoinPlan batchFetch(String path, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        int index = -1;
+        while ((index = path.indexOf('.', index + 1)) > 0) {
+            batchSizes.putIfAbsent(path.substring(0, index), batchSize);
+        }
+        batchSizes.put(path, batchSize);
+        return this;
+    }
+
+    public JoinType getJoinType(String path) {
+        JoinType joinType = joinTypes.get(path);
+        return joinType == null ? JoinType.INNER : joinType;
+    }
+
+    public boolean isFetch(String path) {
+        return fetchPaths.contains(path);
+    }
+
+    /**
+     * Fetched paths, parents before their children.
+     */
+    public Set<String> getFetchPaths() {
+        return Collections.unmodifiableSet(fetchPaths);
+    }
+
+    public String getEntityGraph() {
+        return entityGraph;
+    }
+
+    /**
+     * Batch sizes by path, parents before their children.
+     */
+    public Map<String, Integer> getBatchSizes() {
+        return Collections.unmodifiableMap(batchSizes);
+    }
+
+    /**
+     * Returns true if the query fetches by join or entity graph, so root rows may repeat and must be made
+     * distinct.
+     */
+    public boolean isFetching() {
+        return !fetchPaths.isEmpty() || entityGraph != null;
+    }
+
+    public boolean isEmpty() {
+        return joinTypes.isEmpty() && fetchPaths.isEmpty() && batchSizes.isEmpty() && entityGraph == null;
+    }
+
+    public void appendShape(StringBuilder shape) {
+        for (Map.Entry<String, JoinType> entry: joinTypes.entrySet()) {
+            shape.append(entry.getKey()).append(' ').append(entry.getValue()).append(',');
+        }
+        for (String path: fetchPaths) {
+            shape.append(path).append(" FETCH,");
+        }
+        if (entityGraph != null) {
+            shape.append(entityGraph).append(" GRAPH,");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import javax.persistence.criteria.CommonAbstractCriteria;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Joins created for a single query, keyed by association path so that every predicate, order and group by on
+ * the same path shares one join.
+ */
+public class JoinRegistry {
+    private final From<?, ?> root;
+    private final Class<?> rootType;
+    private final JoinPlan joinPlan;
+    private final boolean fetchAllowed;
+    private final FieldPathRegistry fieldPaths;
+    private final Map<String, From<?, ?>> joins = new HashMap<>();
+    private final Map<String, Expression<?>> aliases = new HashMap<>();
+    private CommonAbstractCriteria query;
+
+    public JoinRegistry(Root<?> root) {
+        this(root, new JoinPlan(), true);
+    }
+
+    /**
+     * @param fetchAllowed false for count and aggregate queries, where fetch joins are rejected because the
+     *                     root entity is not selected
+     */
+    public JoinRegistry(Root<?> root, JoinPlan joinPlan, boolean fetchAllowed) {
+        this(root, joinPlan, fetchAllowed, null);
+    }
+
+    /**
+     * @param fieldPaths resolves fields to precomputed paths, checking them against the metamodel; may be null
+     */
+    public JoinRegistry(Root<?> root, JoinPlan joinPlan, boolean fetchAllowed, FieldPathRegistry fieldPaths) {
+        this(root, root.getJavaType(), joinPlan, fetchAllowed, fieldPaths);
+    }
+
+    private JoinRegistry(From<?, ?> root, Class<?> rootType, JoinPlan joinPlan, boolean fetchAllowed,
+                         FieldPathRegistry fieldPaths) {
+        this.root = root;
+        this.rootType = rootType;
+        this.joinPlan = joinPlan;
+        this.fetchAllowed = fetchAllowed;
+        this.fieldPaths = fieldPaths;
+    }
+
+    /**
+     * The query root, or the correlated element of an {@link #exists} subquery.
+     */
+    public From<?, ?> getRoot() {
+        return root;
+    }
+
+    /**
+     * Sets the query {@link #exists} creates its subqueries in; without it, EXISTS predicates cannot be built.
+     */
+    public JoinRegistry forQuery(CommonAbstractCriteria query) {
+        this.query = query;
+        return this;
+    }
+
+    /**
+     * Makes {@code alias} resolve to {@code expression} in {@link #get(String)}, e.g. an aggregate referenced by
+     * a HAVING predicate or an order.
+     */
+    public JoinRegistry alias(String alias, Expression<?> expression) {
+        aliases.put(alias, expression);
+        return this;
+    }
+
+    /**
+     * Resolves an alias registered with {@link #alias(String, Expression)}, otherwise a field path.
+     */
+    @SuppressWarnings("unchecked")
+    public <X> Expression<X> get(String field) {
+        Expression<?> expression = aliases.get(field);
+        return expression != null ? (Expression<X>) expression : getPath(field);
+    }
+
+    public <X> Path<X> getPath(String field) {
+        if (fieldPaths != null) {
+            FieldPath path = fieldPaths.resolve(rootType, field);
+            return (path.getParentPath() == null ? root : join(path.getParentPath())).get(path.getAttribute());
+        }
+        int index = field.lastIndexOf('.');
+        if (index < 0) {
+            return root.get(field);
+        }
+        return join(field.substring(0, index)).get(field.substring(index + 1));
+    }
+
+    public From<?, ?> join(String path) {
+        From<?, ?> join = joins.get(path);
+        if (join != null) {
+            return join;
+        }
+        int index = path.lastIndexOf('.');
+        From<?, ?> parent = index < 0 ? root : join(path.substring(0, index));
+        String attribute = path.substring(index + 1);
+        JoinType joinType = joinPlan.getJoinType(path);
+        if (fetchAllowed && joinPlan.isFetch(path)) {
+            join = (From<?, ?>) parent.fetch(attribute, joinType);
+        } else {
+            join = parent.join(attribute, joinType);
+        }
+        joins.put(path, join);
+        return join;
+    }
+
+    /**
+     * Returns an {@code EXISTS} subquery over the elements of the association at {@code path}, correlated with
+     * this registry's root. {@code condition} gets a registry rooted at the element and returns the subquery's
+     * WHERE clause, or null for none. Joins made in the subquery never add rows to the outer query.
+     *
+     * @throws IllegalStateException if no query was set with {@link #forQuery}
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Predicate exists(CriteriaBuilder criteriaBuilder, String path, Function<JoinRegistry, Predicate> condition) {
+        if (query == null) {
+            throw new IllegalStateException("EXISTS on " + path + " needs the query it belongs to, see forQuery");
+        }
+        Class<?> elementType = fieldPaths == null ? null : fieldPaths.resolve(rootType, path).getJavaType();
+        Subquery<Integer> subquery = query.subquery(Integer.class);
+        From<?, ?> element = root instanceof Root ? subquery.correlate((Root) root) : subquery.correlate((Join) root);
+        for (String segment: path.split("\\.")) {
+            element = element.join(segment);
+        }
+        if (elementType == null) {
+            elementType = element.getJavaType();
+        }
+        JoinRegistry elements = new JoinRegistry(element, elementType, new JoinPlan(), false, fieldPaths)
+                .forQuery(subquery);
+        Predicate where = condition.apply(elements);
+        subquery.select(criteriaBuilder.literal(1));
+        if (where != null) {
+            subquery.where(where);
+        }
+        return criteriaBuilder.exists(subquery);
+    }
+}
@@ -1,5 +1,6 @@
 package com.upperlink.billerservice.repository.predicate;
 
 public enum Operation {
-    LIKE, EQUALS, LESS, STRING_EQUALS, LESS_OR_EQUAL, GREATER_OR_EQUAL, GREATER, BETWEEN, IN;
+    LIKE, EQUALS, LESS, STRING_EQUALS, LESS_OR_EQUAL, GREATER_OR_EQUAL, GREATER, BETWEEN, IN,
+    STARTS_WITH, ENDS_WITH, CONTAINS, EQUALS_EXACT;
 }
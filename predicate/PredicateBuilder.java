@@ -1,14 +1,21 @@
 package com.upperlink.billerservice.repository.predicate;
 
+import org.hibernate.Hibernate;
 
 import javax.persistence.criteria.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class PredicateBuilder {
+    private static final char ESCAPE = '!';
+
     private ConjunctionType conjunctionType;
     private List<PredicateBuilder> builders;
     private List<CustomPredicate> predicates;
+    private boolean unsatisfiable;
+    private String existsPath;
+    private PredicateBuilder existsCondition;
+    private boolean existsNegated;
 
     public PredicateBuilder() {
         this(ConjunctionType.AND);
@@ -31,111 +38,333 @@ public class PredicateBuilder {
     }
 
     public <T> Predicate build(CriteriaBuilder criteriaBuilder, Root<T> root, Predicate where) {
+        return build(criteriaBuilder, new JoinRegistry(root), where, null);
+    }
+
+    public Predicate build(CriteriaBuilder criteriaBuilder, JoinRegistry joins, Predicate where) {
+        return build(criteriaBuilder, joins, where, null);
+    }
+
+    /**
+     * Adds this tree to {@code where}, with a {@link ParameterExpression} in place of every value when
+     * {@code parameters} is not null, resolving every field through {@code joins}. Parameters are appended in
+     * the order {@link #collectValues(List)} returns their values. Empty nested builders and null operands of an
+     * {@code IN}, which SQL never matches, are ignored.
+     */
+    public Predicate build(CriteriaBuilder criteriaBuilder, JoinRegistry joins, Predicate where,
+                           List<ParameterExpression<?>> parameters) {
+        Predicate predicate = toPredicate(criteriaBuilder, joins, parameters);
+        return predicate == null ? where : criteriaBuilder.and(where, predicate);
+    }
+
+    private Predicate toPredicate(CriteriaBuilder criteriaBuilder, JoinRegistry joins,
+                                  List<ParameterExpression<?>> parameters) {
+        if (unsatisfiable) {
+            return criteriaBuilder.disjunction();
+        }
+        if (existsPath != null) {
+            Predicate exists = joins.exists(criteriaBuilder, existsPath,
+                    elements -> existsCondition.toPredicate(criteriaBuilder, elements, parameters));
+            return existsNegated ? criteriaBuilder.not(exists) : exists;
+        }
+        List<Predicate> terms = new ArrayList<>();
         for (PredicateBuilder builder: builders) {
-            if (conjunctionType == ConjunctionType.AND) {
-                where = criteriaBuilder.and(builder.build(criteriaBuilder, root, where));
-            } else {
-                where = criteriaBuilder.or(builder.build(criteriaBuilder, root, where));
+            Predicate term = builder.toPredicate(criteriaBuilder, joins, parameters);
+            if (term != null) terms.add(term);
+        }
+        List<Object> values = new ArrayList<>();
+        for (CustomPredicate predicate: predicates) {
+            if (predicate.getField() == null || predicate.getValue() == null) {
+                continue;
             }
+            values.clear();
+            addValues(predicate, values);
+            Predicate term = toPredicate(criteriaBuilder, joins, predicate, values, parameters);
+            terms.add(predicate.isNegate() ? criteriaBuilder.not(term) : term);
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+        if (terms.size() == 1) {
+            return terms.get(0);
+        }
+        Predicate[] array = terms.toArray(new Predicate[0]);
+        return conjunctionType == ConjunctionType.AND ? criteriaBuilder.and(array) : criteriaBuilder.or(array);
+    }
+
+    private static Predicate toPredicate(CriteriaBuilder criteriaBuilder, JoinRegistry joins, CustomPredicate predicate,
+                                         List<Object> values, List<ParameterExpression<?>> parameters) {
+        Expression path = joins.get(predicate.getField());
+        Expression value = value(criteriaBuilder, values.get(0), parameters);
+        switch (predicate.getOperation()) {
+            case LIKE:
+                return criteriaBuilder.like(fold(criteriaBuilder, path, predicate), value);
+            case STARTS_WITH:
+            case ENDS_WITH:
+            case CONTAINS:
+                return criteriaBuilder.like(fold(criteriaBuilder, path, predicate), value, ESCAPE);
+            case EQUALS:
+            case EQUALS_EXACT:
+                return criteriaBuilder.equal(path, value);
+            case STRING_EQUALS:
+                return criteriaBuilder.equal(fold(criteriaBuilder, path, predicate), value);
+            case LESS:
+                return criteriaBuilder.lessThan(path, value);
+            case LESS_OR_EQUAL:
+                return criteriaBuilder.lessThanOrEqualTo(path, value);
+            case GREATER:
+                return criteriaBuilder.greaterThan(path, value);
+            case GREATER_OR_EQUAL:
+                return criteriaBuilder.greaterThanOrEqualTo(path, value);
+            case BETWEEN:
+                return criteriaBuilder.between(path, value, value(criteriaBuilder, values.get(1), parameters));
+            case IN:
+                CriteriaBuilder.In<Object> inClause = criteriaBuilder.in(path);
+                inClause.value(value);
+                for (int i = 1; i < values.size(); i++)
+                    inClause.value(value(criteriaBuilder, values.get(i), parameters));
+                return inClause;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + predicate.getOperation());
         }
+    }
+
+    private static Expression<String> fold(CriteriaBuilder criteriaBuilder, Expression<String> path,
+                                           CustomPredicate predicate) {
+        switch (CaseFolding.of(predicate)) {
+            case UPPER:
+                return criteriaBuilder.upper(path);
+            case LOWER:
+                return criteriaBuilder.lower(path);
+            default:
+                return path;
+        }
+    }
+
+    /**
+     * Compiles this tree into an in-memory test with the same meaning as the query built from it. See
+     * {@link JavaPredicateCompiler}.
+     */
+    public <T> java.util.function.Predicate<T> toJavaPredicate(Class<T> clazz) {
+        return JavaPredicateCompiler.compile(this, clazz);
+    }
+
+    public ConjunctionType getConjunctionType() {
+        return conjunctionType;
+    }
+
+    public List<PredicateBuilder> getBuilders() {
+        return builders;
+    }
+
+    public List<CustomPredicate> getPredicates() {
+        return predicates;
+    }
+
+    /**
+     * Returns a builder matching rows with at least one element in the association at {@code path}, usually a
+     * collection, for which {@code condition} holds. Fields in {@code condition} are relative to the element.
+     * It is translated to a correlated {@code EXISTS} subquery rather than a join, so a row with several matching
+     * elements is still returned once and other predicates on {@code path} are not tied to the same element.
+     */
+    public static PredicateBuilder exists(String path, PredicateBuilder condition) {
+        PredicateBuilder builder = new PredicateBuilder();
+        builder.existsPath = path;
+        builder.existsCondition = condition;
+        return builder;
+    }
+
+    /**
+     * Returns a builder matching rows with no element in the association at {@code path} for which
+     * {@code condition} holds, including rows where it is empty or null. See {@link #exists}.
+     */
+    public static PredicateBuilder notExists(String path, PredicateBuilder condition) {
+        PredicateBuilder builder = exists(path, condition);
+        builder.existsNegated = true;
+        return builder;
+    }
+
+    /**
+     * Returns true for a builder from {@link #exists} or {@link #notExists}; it has no builders or predicates of
+     * its own.
+     */
+    public boolean isExists() {
+        return existsPath != null;
+    }
+
+    public String getExistsPath() {
+        return existsPath;
+    }
+
+    public PredicateBuilder getExistsCondition() {
+        return existsCondition;
+    }
+
+    public boolean isExistsNegated() {
+        return existsNegated;
+    }
+
+    /**
+     * Returns a node like this {@link #exists} or {@link #notExists} node but over {@code condition}, e.g. after
+     * rewriting the condition.
+     */
+    public PredicateBuilder withExistsCondition(PredicateBuilder condition) {
+        return existsNegated ? notExists(existsPath, condition) : exists(existsPath, condition);
+    }
+
+    /**
+     * Returns a builder that matches nothing, e.g. for a tree {@link PredicateNormalizer} found contradictory.
+     */
+    public static PredicateBuilder unsatisfiable() {
+        PredicateBuilder builder = new PredicateBuilder();
+        builder.unsatisfiable = true;
+        return builder;
+    }
+
+    /**
+     * Returns true for a builder from {@link #unsatisfiable()}; queries with it can return no rows without
+     * hitting the database.
+     */
+    public boolean isUnsatisfiable() {
+        return unsatisfiable;
+    }
+
+    /**
+     * Returns true if no predicate in this tree would be applied.
+     */
+    public boolean isEmpty() {
+        if (unsatisfiable || existsPath != null) return false;
+        for (PredicateBuilder builder: builders) {
+            if (!builder.isEmpty()) return false;
+        }
+        for (CustomPredicate predicate: predicates) {
+            if (predicate.getField() != null && predicate.getValue() != null) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if any applied predicate is on a dotted path, i.e. needs a join, or the tree has an
+     * {@link #exists} node, whose correlated subquery bulk statements cannot hold either.
+     */
+    public boolean usesJoins() {
+        if (existsPath != null) {
+            return true;
+        }
+        for (PredicateBuilder builder: builders) {
+            if (builder.usesJoins()) return true;
+        }
+        for (CustomPredicate predicate: predicates) {
+            if (predicate.getField() != null && predicate.getValue() != null && predicate.getField().indexOf('.') >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the values bound by {@link #build(CriteriaBuilder, JoinRegistry, Predicate, List)}, in parameter order.
+     */
+    public void collectValues(List<Object> values) {
+        if (existsPath != null) {
+            existsCondition.collectValues(values);
+            return;
+        }
+        for (PredicateBuilder builder: builders) {
+            builder.collectValues(values);
+        }
+        for (CustomPredicate predicate: predicates) {
+            if (predicate.getField() == null || predicate.getValue() == null) {
+                continue;
+            }
+            addValues(predicate, values);
+        }
+    }
+
+    /**
+     * Appends the structure of this tree - conjunctions, fields, operations and value types, but not the
+     * values themselves - so that trees differing only in their values produce the same key.
+     */
+    public void appendShape(StringBuilder shape) {
+        if (unsatisfiable) {
+            shape.append("FALSE");
+            return;
+        }
+        if (existsPath != null) {
+            shape.append(existsNegated ? "NOT EXISTS " : "EXISTS ").append(existsPath).append(' ');
+            existsCondition.appendShape(shape);
+            return;
+        }
+        shape.append(conjunctionType).append('(');
+        for (PredicateBuilder builder: builders) {
+            builder.appendShape(shape);
+        }
+        List<Object> values = new ArrayList<>();
         for (CustomPredicate predicate: predicates) {
             if (predicate.getField() == null || predicate.getValue() == null) {
                 continue;
             }
-            switch (predicate.getOperation()) {
-                case LIKE:
-                    Predicate likePredicate = predicate.isNegate() ?
-                            criteriaBuilder.notLike(criteriaBuilder.upper(getPath(predicate, root)),
-                                    ((String) predicate.getValue()).toUpperCase()) :
-                            criteriaBuilder.like( criteriaBuilder.upper(getPath(predicate, root)),
-                                    ((String) predicate.getValue()).toUpperCase());
-                    if (conjunctionType == ConjunctionType.AND) {
-                        where = criteriaBuilder.and(where, likePredicate);
-                    } else {
-                        where = criteriaBuilder.or(where, likePredicate);
-                    }
-
-                    break;
-                case EQUALS:
-                    Predicate equalPredicate = predicate.isNegate() ?
-                            criteriaBuilder.notEqual(getPath(predicate, root), predicate.getValue()) :
-                            criteriaBuilder.equal(getPath(predicate, root), predicate.getValue());
-                    if (conjunctionType == ConjunctionType.AND) {
-                        where = criteriaBuilder.and(where, equalPredicate);
-                    } else {
-                        where = criteriaBuilder.or(where, equalPredicate);
-                    }
-                    break;
-                case STRING_EQUALS:
-                    Predicate strEqualPredicate = criteriaBuilder.equal(criteriaBuilder.upper(getPath(predicate, root)),
-                            ((String)predicate.getValue()).toUpperCase());
-                    if (conjunctionType == ConjunctionType.AND) {
-                        where = criteriaBuilder.and(where, strEqualPredicate);
-                    } else {
-                        where = criteriaBuilder.or(where, strEqualPredicate);
-                    }
-                    break;
-                case LESS:
-                    if (conjunctionType == ConjunctionType.AND) {
-                        criteriaBuilder.and(where,
-                            criteriaBuilder.lessThan(getPath(predicate, root), predicate.getValue()));
-                    } else {
-                        criteriaBuilder.or(where,
-                            criteriaBuilder.lessThan(getPath(predicate, root), predicate.getValue()));
-                    }
-
-                    break;
-                case LESS_OR_EQUAL:
-                    if (conjunctionType == ConjunctionType.AND) {
-                        criteriaBuilder.or(where,
-                                criteriaBuilder.lessThanOrEqualTo(getPath(predicate, root), predicate.getValue()));
-                    } else {
-                        criteriaBuilder.or(where,
-                                criteriaBuilder.lessThanOrEqualTo(getPath(predicate, root), predicate.getValue()));
-                    }
-                    break;
-                case GREATER:
-                    if (conjunctionType == ConjunctionType.AND) {
-                        criteriaBuilder.and(where,
-                            criteriaBuilder.greaterThan(getPath(predicate, root), predicate.getValue()));
-                    } else {
-                        criteriaBuilder.or(where,
-                            criteriaBuilder.greaterThan(getPath(predicate, root), predicate.getValue()));
-                    }
-                    break;
-                case GREATER_OR_EQUAL:
-                    if (conjunctionType == ConjunctionType.AND) {
-                        criteriaBuilder.and(where,
-                            criteriaBuilder.greaterThanOrEqualTo(getPath(predicate, root), predicate.getValue()));
-                    } else {
-                        criteriaBuilder.or(where,
-                            criteriaBuilder.greaterThanOrEqualTo(getPath(predicate, root), predicate.getValue()));
-                    }
-                    break;
-                case BETWEEN:
-                    Predicate betweenPredicate = predicate.isNegate() ?
-                        criteriaBuilder.not(criteriaBuilder.between(getPath(predicate, root), predicate.getValue(), predicate.getOtherValues().get(0))) :
-                        criteriaBuilder.between(getPath(predicate, root), predicate.getValue(), predicate.getOtherValues().get(0));
-                    if (conjunctionType == ConjunctionType.AND) {
-                        criteriaBuilder.and(where, betweenPredicate);
-                    } else {
-                        criteriaBuilder.or(where, betweenPredicate);
-                    }
-                    break;
-                case IN:
-                    CriteriaBuilder.In<Comparable> inClause = criteriaBuilder.in(getPath(predicate, root));
-                    if (predicate.getValue() != null)  inClause.value(predicate.getValue());
-                    for (Comparable value: predicate.getOtherValues()) inClause.value(value);
-                    Predicate inPredicate = predicate.isNegate() ?
-                            criteriaBuilder.not(criteriaBuilder.in(inClause)) : criteriaBuilder.in(inClause);
-                    if (conjunctionType == ConjunctionType.AND) {
-                        criteriaBuilder.and(where, inPredicate);
-                    } else {
-                        criteriaBuilder.or(where, inPredicate);
-                    }
+            values.clear();
+            addValues(predicate, values);
+            shape.append(predicate.getField()).append(' ').append(predicate.getOperation());
+            if (predicate.getCaseFolding() != null) shape.append(' ').append(predicate.getCaseFolding());
+            if (predicate.isNegate()) shape.append(" NOT");
+            for (Object value: values) {
+                shape.append(' ').append(Hibernate.getClass(value).getName());
             }
+            shape.append(';');
+        }
+        shape.append(')');
+    }
+
+    private static void addValues(CustomPredicate predicate, List<Object> values) {
+        switch (predicate.getOperation()) {
+            case LIKE:
+            case STRING_EQUALS:
+                values.add(CaseFolding.of(predicate).fold((String) predicate.getValue()));
+                break;
+            case STARTS_WITH:
+                values.add(CaseFolding.of(predicate).fold(escape((String) predicate.getValue()) + "%"));
+                break;
+            case ENDS_WITH:
+                values.add(CaseFolding.of(predicate).fold("%" + escape((String) predicate.getValue())));
+                break;
+            case CONTAINS:
+                values.add(CaseFolding.of(predicate).fold("%" + escape((String) predicate.getValue()) + "%"));
+                break;
+            case BETWEEN:
+                values.add(predicate.getValue());
+                values.add(predicate.getOtherValues().get(0));
+                break;
+            case IN:
+                values.add(predicate.getValue());
+                for (Comparable value: predicate.getOtherValues()) {
+                    if (value != null) values.add(value);
+                }
+                break;
+            default:
+                values.add(predicate.getValue());
+        }
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) escaped.append(ESCAPE);
+            escaped.append(c);
         }
-        return where;
+        return escaped.toString();
+    }
+
+    private static Expression value(CriteriaBuilder criteriaBuilder, Object value,
+                                    List<ParameterExpression<?>> parameters) {
+        if (parameters == null) {
+            return criteriaBuilder.literal(value);
+        }
+        ParameterExpression<?> parameter = criteriaBuilder.parameter(Hibernate.getClass(value));
+        parameters.add(parameter);
+        return parameter;
     }
 
     public static <T, X> Path<X> getPath(CustomPredicate predicate, Root<T> root) {
@@ -143,30 +372,17 @@ public class PredicateBuilder {
     }
 
     public static <T, X> Path<X> getPath(String field, Root<T> root) {
-        String[] paths = field.split("\\.");
-        if (paths.length == 1) {
-            return root.get(paths[0]);
-        }
-        Join join = root.join(paths[0]);
-        if (paths.length > 2) {
-            for (int i = 1; i < paths.length - 1; i++) {
-                join = join.join(paths[i]);
-            }
-        }
-        return join.get(paths[paths.length - 1]);
+        return new JoinRegistry(root).getPath(field);
     }
 
+    /**
+     * @throws IllegalArgumentException if the attribute is not a {@code clazz}
+     */
     public static <T, X extends Number> Path<X> getPath(String field, Root<T> root, Class<X> clazz) {
-        String[] paths = field.split("\\.");
-        if (paths.length == 1) {
-            return root.get(paths[0]);
-        }
-        Join join = root.join(paths[0]);
-        if (paths.length > 2) {
-            for (int i = 1; i < paths.length - 1; i++) {
-                join = join.join(paths[i]);
-            }
+        Path<X> path = new JoinRegistry(root).getPath(field);
+        if (!clazz.isAssignableFrom(Values.wrap(path.getJavaType()))) {
+            throw new IllegalArgumentException(field + " is " + path.getJavaType().getName() + ", not " + clazz.getName());
         }
-        return join.get(paths[paths.length - 1]);
+        return path;
     }
 }
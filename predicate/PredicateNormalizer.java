@@ -0,0 +1,393 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites a {@link PredicateBuilder} tree into an equivalent, simpler one before it is translated:
+ * <ul>
+ *     <li>predicates without a field or value and empty nested builders are dropped;</li>
+ *     <li>a nested builder that becomes always true, e.g. NOT EXISTS over an unsatisfiable condition, is dropped
+ *     under AND and makes an OR always true;</li>
+ *     <li>nested builders with the parent's conjunction, or with a single term, are flattened into it;</li>
+ *     <li>under OR, EQUALS and IN on the same field become one IN;</li>
+ *     <li>under AND, EQUALS and IN on the same field are intersected and range operations are collapsed
+ *     into the tightest bounds, a single BETWEEN when both are inclusive;</li>
+ *     <li>duplicate predicates are removed.</li>
+ * </ul>
+ * The condition of an {@link PredicateBuilder#exists} node is normalized on its own, since its fields are relative
+ * to the element; an unsatisfiable condition makes EXISTS unsatisfiable and NOT EXISTS always true.
+ * A tree that can match nothing, e.g. {@code branchId = 1 AND branchId = 2} or {@code amount > 10 AND amount < 5},
+ * becomes {@link PredicateBuilder#unsatisfiable()}. Only numbers, dates and booleans are intersected and
+ * collapsed, since they compare the same in Java and SQL; strings and other values are left for the database,
+ * whose collation may ignore case or accents. Negated predicates, LIKE and STRING_EQUALS are only
+ * de-duplicated.
+ * <p>
+ * The input tree is not modified.
+ */
+public final class PredicateNormalizer {
+
+    private PredicateNormalizer() {
+    }
+
+    public static PredicateBuilder normalize(PredicateBuilder builder) {
+        if (builder.isUnsatisfiable()) {
+            return builder;
+        }
+        if (builder.isExists()) {
+            return normalizeExists(builder);
+        }
+        ConjunctionType type = builder.getConjunctionType();
+        List<PredicateBuilder> children = new ArrayList<>();
+        List<CustomPredicate> predicates = new ArrayList<>();
+        boolean droppedUnsatisfiable = false;
+
+        for (PredicateBuilder child: builder.getBuilders()) {
+            PredicateBuilder normalized = normalize(child);
+            if (normalized.isUnsatisfiable()) {
+                if (type == ConjunctionType.AND) {
+                    return PredicateBuilder.unsatisfiable();
+                }
+                droppedUnsatisfiable = true;
+            } else if (normalized.isEmpty()) {
+                if (type == ConjunctionType.OR && !child.isEmpty()) {
+                    return new PredicateBuilder();
+                }
+            } else if (!normalized.isExists()
+                    && (normalized.getConjunctionType() == type || termCount(normalized) == 1)) {
+                children.addAll(normalized.getBuilders());
+                predicates.addAll(normalized.getPredicates());
+            } else {
+                children.add(normalized);
+            }
+        }
+        for (CustomPredicate predicate: builder.getPredicates()) {
+            if (predicate.getField() != null && predicate.getValue() != null) {
+                predicates.add(predicate);
+            }
+        }
+
+        predicates = type == ConjunctionType.AND ? mergeAnd(predicates) : mergeOr(predicates);
+        if (predicates == null) {
+            return PredicateBuilder.unsatisfiable();
+        }
+        predicates = distinct(predicates);
+        if (children.isEmpty() && predicates.isEmpty() && droppedUnsatisfiable) {
+            return PredicateBuilder.unsatisfiable();
+        }
+        if (children.size() == 1 && predicates.isEmpty()) {
+            return children.get(0);
+        }
+
+        PredicateBuilder normalized = new PredicateBuilder(type);
+        for (PredicateBuilder child: children) {
+            normalized.addBuilder(child);
+        }
+        for (CustomPredicate predicate: predicates) {
+            normalized.addPredicate(predicate);
+        }
+        return normalized;
+    }
+
+    private static PredicateBuilder normalizeExists(PredicateBuilder builder) {
+        PredicateBuilder condition = normalize(builder.getExistsCondition());
+        if (condition.isUnsatisfiable()) {
+            return builder.isExistsNegated() ? new PredicateBuilder() : PredicateBuilder.unsatisfiable();
+        }
+        if (condition == builder.getExistsCondition()) {
+            return builder;
+        }
+        return builder.withExistsCondition(condition);
+    }
+
+    private static int termCount(PredicateBuilder builder) {
+        return builder.getBuilders().size() + builder.getPredicates().size();
+    }
+
+    /**
+     * @return the merged predicates, or null if they contradict each other
+     */
+    private static List<CustomPredicate> mergeAnd(List<CustomPredicate> predicates) {
+        Map<String, List<CustomPredicate>> byField = groupMergeable(predicates, true);
+        List<CustomPredicate> merged = new ArrayList<>(predicates.size());
+        for (CustomPredicate predicate: predicates) {
+            List<CustomPredicate> group = isMergeable(predicate, true) ? byField.remove(predicate.getField()) : null;
+            if (group == null) {
+                if (!isMergeable(predicate, true)) merged.add(predicate);
+                continue;
+            }
+            List<CustomPredicate> constraint = intersect(predicate.getField(), group);
+            if (constraint == null) {
+                return null;
+            }
+            merged.addAll(constraint);
+        }
+        return merged;
+    }
+
+    private static List<CustomPredicate> mergeOr(List<CustomPredicate> predicates) {
+        Map<String, List<CustomPredicate>> byField = groupMergeable(predicates, false);
+        List<CustomPredicate> merged = new ArrayList<>(predicates.size());
+        for (CustomPredicate predicate: predicates) {
+            List<CustomPredicate> group = isMergeable(predicate, false) ? byField.remove(predicate.getField()) : null;
+            if (group == null) {
+                if (!isMergeable(predicate, false)) merged.add(predicate);
+                continue;
+            }
+            List<Object> values = new ArrayList<>();
+            for (CustomPredicate equality: group) {
+                for (Object value: values(equality)) {
+                    if (indexOf(values, value) < 0) values.add(value);
+                }
+            }
+            merged.add(equalityPredicate(predicate.getField(), values));
+        }
+        return merged;
+    }
+
+    private static boolean isMergeable(CustomPredicate predicate, boolean ranges) {
+        if (predicate.isNegate() || ranges && !isOrdered(predicate)) {
+            return false;
+        }
+        switch (predicate.getOperation()) {
+            case EQUALS:
+            case IN:
+                return true;
+            case BETWEEN:
+                return ranges && !predicate.getOtherValues().isEmpty();
+            case LESS:
+            case LESS_OR_EQUAL:
+            case GREATER:
+            case GREATER_OR_EQUAL:
+                return ranges;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns true if every value of {@code predicate} compares in Java as it does in SQL.
+     */
+    private static boolean isOrdered(CustomPredicate predicate) {
+        if (!isOrdered(predicate.getValue())) {
+            return false;
+        }
+        for (Object value: predicate.getOtherValues()) {
+            if (value != null && !isOrdered(value)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isOrdered(Object value) {
+        return value instanceof Number || value instanceof Date || value instanceof Boolean;
+    }
+
+    private static Map<String, List<CustomPredicate>> groupMergeable(List<CustomPredicate> predicates, boolean ranges) {
+        Map<String, List<CustomPredicate>> byField = new LinkedHashMap<>();
+        for (CustomPredicate predicate: predicates) {
+            if (isMergeable(predicate, ranges)) {
+                byField.computeIfAbsent(predicate.getField(), f -> new ArrayList<>()).add(predicate);
+            }
+        }
+        return byField;
+    }
+
+    /**
+     * Combines the equality and range predicates ANDed on one field.
+     *
+     * @return the equivalent predicates, the group itself if its values are not comparable, or null if
+     * nothing can match
+     */
+    private static List<CustomPredicate> intersect(String field, List<CustomPredicate> group) {
+        if (group.size() == 1 && group.get(0).getOperation() != Operation.IN) {
+            return group;
+        }
+        List<Object> allowed = null;
+        Object lower = null;
+        boolean lowerInclusive = true;
+        Object upper = null;
+        boolean upperInclusive = true;
+
+        for (CustomPredicate predicate: group) {
+            switch (predicate.getOperation()) {
+                case EQUALS:
+                case IN:
+                    List<Object> values = values(predicate);
+                    if (allowed == null) {
+                        allowed = new ArrayList<>();
+                        for (Object value: values) {
+                            if (indexOf(allowed, value) < 0) allowed.add(value);
+                        }
+                    } else {
+                        List<Object> retained = new ArrayList<>();
+                        for (Object value: allowed) {
+                            if (indexOf(values, value) >= 0) retained.add(value);
+                        }
+                        allowed = retained;
+                    }
+                    break;
+                case GREATER:
+                case GREATER_OR_EQUAL:
+                case BETWEEN: {
+                    boolean inclusive = predicate.getOperation() != Operation.GREATER;
+                    Integer c = lower == null ? Integer.valueOf(1) : compare(predicate.getValue(), lower);
+                    if (c == null) return group;
+                    if (c > 0 || c == 0 && !inclusive) {
+                        lower = predicate.getValue();
+                        lowerInclusive = inclusive;
+                    }
+                    if (predicate.getOperation() != Operation.BETWEEN) break;
+                }
+                // BETWEEN also sets the upper bound
+                default: {
+                    boolean inclusive = predicate.getOperation() != Operation.LESS;
+                    Object bound = predicate.getOperation() == Operation.BETWEEN ? predicate.getOtherValues().get(0)
+                            : predicate.getValue();
+                    Integer c = upper == null ? Integer.valueOf(-1) : compare(bound, upper);
+                    if (c == null) return group;
+                    if (c < 0 || c == 0 && !inclusive) {
+                        upper = bound;
+                        upperInclusive = inclusive;
+                    }
+                }
+            }
+        }
+
+        if (lower != null && upper != null) {
+            Integer c = compare(lower, upper);
+            if (c == null) return group;
+            if (c > 0 || c == 0 && !(lowerInclusive && upperInclusive)) return null;
+        }
+        List<CustomPredicate> merged = new ArrayList<>(2);
+        if (allowed != null) {
+            List<Object> inRange = new ArrayList<>();
+            for (Object value: allowed) {
+                Integer aboveLower = lower == null ? Integer.valueOf(1) : compare(value, lower);
+                Integer belowUpper = upper == null ? Integer.valueOf(-1) : compare(value, upper);
+                if (aboveLower == null || belowUpper == null) return group;
+                if ((aboveLower > 0 || aboveLower == 0 && lowerInclusive)
+                        && (belowUpper < 0 || belowUpper == 0 && upperInclusive)) {
+                    inRange.add(value);
+                }
+            }
+            if (inRange.isEmpty()) return null;
+            merged.add(equalityPredicate(field, inRange));
+            return merged;
+        }
+        if (lower != null && upper != null && lowerInclusive && upperInclusive) {
+            merged.add(compare(lower, upper) == 0 ? new CustomPredicate(field, (Comparable) lower)
+                    : new CustomPredicate(field, (Comparable) lower, Operation.BETWEEN).addOtherValue((Comparable) upper));
+            return merged;
+        }
+        if (lower != null) {
+            merged.add(new CustomPredicate(field, (Comparable) lower,
+                    lowerInclusive ? Operation.GREATER_OR_EQUAL : Operation.GREATER));
+        }
+        if (upper != null) {
+            merged.add(new CustomPredicate(field, (Comparable) upper,
+                    upperInclusive ? Operation.LESS_OR_EQUAL : Operation.LESS));
+        }
+        return merged;
+    }
+
+    private static CustomPredicate equalityPredicate(String field, List<Object> values) {
+        if (values.size() == 1) {
+            return new CustomPredicate(field, (Comparable) values.get(0));
+        }
+        CustomPredicate in = new CustomPredicate(field, (Comparable) values.get(0), Operation.IN);
+        for (int i = 1; i < values.size(); i++) {
+            in.addOtherValue((Comparable) values.get(i));
+        }
+        return in;
+    }
+
+    private static List<Object> values(CustomPredicate predicate) {
+        List<Object> values = new ArrayList<>();
+        values.add(predicate.getValue());
+        if (predicate.getOperation() == Operation.IN) {
+            for (Object value: predicate.getOtherValues()) {
+                if (value != null) values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static List<CustomPredicate> distinct(List<CustomPredicate> predicates) {
+        List<CustomPredicate> distinct = new ArrayList<>(predicates.size());
+        for (CustomPredicate predicate: predicates) {
+            boolean duplicate = false;
+            for (CustomPredicate seen: distinct) {
+                if (sameCondition(seen, predicate)) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) distinct.add(predicate);
+        }
+        return distinct;
+    }
+
+    private static boolean sameCondition(CustomPredicate a, CustomPredicate b) {
+        if (!a.getField().equals(b.getField()) || a.getOperation() != b.getOperation() || a.isNegate() != b.isNegate()
+                || a.getCaseFolding() != b.getCaseFolding() || !sameValue(a.getValue(), b.getValue())) {
+            return false;
+        }
+        List<Comparable> aOthers = a.getOtherValues() == null ? new ArrayList<>() : a.getOtherValues();
+        List<Comparable> bOthers = b.getOtherValues() == null ? new ArrayList<>() : b.getOtherValues();
+        if (aOthers.size() != bOthers.size()) {
+            return false;
+        }
+        for (int i = 0; i < aOthers.size(); i++) {
+            if (!sameValue(aOthers.get(i), bOthers.get(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        Integer c = compare(a, b);
+        return c != null ? c == 0 : a.equals(b);
+    }
+
+    private static int indexOf(List<Object> values, Object value) {
+        for (int i = 0; i < values.size(); i++) {
+            if (sameValue(values.get(i), value)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the sign of {@code a - b}, or null if the values cannot be compared
+     */
+    static Integer compare(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            BigDecimal x = toBigDecimal((Number) a);
+            BigDecimal y = toBigDecimal((Number) b);
+            return x == null || y == null ? null : Integer.signum(x.compareTo(y));
+        }
+        if (a instanceof Date && b instanceof Date) {
+            return Long.compare(((Date) a).getTime(), ((Date) b).getTime());
+        }
+        if (a instanceof Boolean && b instanceof Boolean) {
+            return Boolean.compare((Boolean) a, (Boolean) b);
+        }
+        return null;
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) return (BigDecimal) number;
+        if (number instanceof BigInteger) return new BigDecimal((BigInteger) number);
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return BigDecimal.valueOf(number.longValue());
+        }
+        double value = number.doubleValue();
+        return Double.isNaN(value) || Double.isInfinite(value) ? null : BigDecimal.valueOf(value);
+    }
+}
@@ -0,0 +1,102 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The value-independent part of a predicate: field, operation, negation and case folding. Templates from
+ * {@link #of(String, Operation, boolean, CaseFolding)} are interned, so the conditions of every request
+ * filtering on the same field share one instance; see {@link Condition}.
+ */
+public final class PredicateTemplate {
+    /**
+     * Fields beyond this many are not interned, so that templates built from untrusted input cannot grow the
+     * table without bound.
+     */
+    private static final int MAX_INTERNED_FIELDS = 4096;
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final int FOLDINGS = CaseFolding.values().length + 1;
+    private static final Map<String, AtomicReferenceArray<PredicateTemplate>> INTERNED = new ConcurrentHashMap<>();
+
+    private final String field;
+    private final Operation operation;
+    private final boolean negate;
+    private final CaseFolding caseFolding;
+    private final int hash;
+
+    private PredicateTemplate(String field, Operation operation, boolean negate, CaseFolding caseFolding) {
+        this.field = field;
+        this.operation = operation;
+        this.negate = negate;
+        this.caseFolding = caseFolding;
+        this.hash = Objects.hash(field, operation, negate, caseFolding);
+    }
+
+    public static PredicateTemplate of(String field, Operation operation) {
+        return of(field, operation, false, null);
+    }
+
+    /**
+     * @param caseFolding may be null, as in {@link CustomPredicate#getCaseFolding()}
+     */
+    public static PredicateTemplate of(String field, Operation operation, boolean negate, CaseFolding caseFolding) {
+        if (field == null || operation == null) {
+            return new PredicateTemplate(field, operation, negate, caseFolding);
+        }
+        AtomicReferenceArray<PredicateTemplate> templates = INTERNED.get(field);
+        if (templates == null) {
+            if (INTERNED.size() >= MAX_INTERNED_FIELDS) {
+                return new PredicateTemplate(field, operation, negate, caseFolding);
+            }
+            templates = INTERNED.computeIfAbsent(field, f -> new AtomicReferenceArray<>(OPERATIONS.length * 2 * FOLDINGS));
+        }
+        int slot = (operation.ordinal() * 2 + (negate ? 1 : 0)) * FOLDINGS + (caseFolding == null ? 0 : caseFolding.ordinal() + 1);
+        PredicateTemplate template = templates.get(slot);
+        if (template == null) {
+            templates.compareAndSet(slot, null, new PredicateTemplate(field, operation, negate, caseFolding));
+            template = templates.get(slot);
+        }
+        return template;
+    }
+
+    public static PredicateTemplate of(CustomPredicate predicate) {
+        return of(predicate.getField(), predicate.getOperation(), predicate.isNegate(), predicate.getCaseFolding());
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public boolean isNegate() {
+        return negate;
+    }
+
+    public CaseFolding getCaseFolding() {
+        return caseFolding;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PredicateTemplate)) return false;
+        PredicateTemplate that = (PredicateTemplate) o;
+        return hash == that.hash && negate == that.negate && operation == that.operation
+                && caseFolding == that.caseFolding && Objects.equals(field, that.field);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return field + " " + (negate ? "NOT " : "") + operation + (caseFolding == null ? "" : " " + caseFolding);
+    }
+}
@@ -0,0 +1,62 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.util.List;
+
+/**
+ * Cache key for a query: the entity class, the structure of its {@link PredicateBuilder}, its
+ * {@link OrderBy} list and its {@link JoinPlan}. Two queries with the same shape differ only in their bound values.
+ */
+public final class QueryShape {
+    private final Class<?> entityClass;
+    private final String key;
+
+    private QueryShape(Class<?> entityClass, String key) {
+        this.entityClass = entityClass;
+        this.key = key;
+    }
+
+    public static QueryShape of(Class<?> entityClass, PredicateBuilder predicateBuilder, List<OrderBy> orderBy) {
+        return of(entityClass, predicateBuilder, orderBy, new JoinPlan());
+    }
+
+    public static QueryShape of(Class<?> entityClass, PredicateBuilder predicateBuilder, List<OrderBy> orderBy,
+                                JoinPlan joinPlan) {
+        StringBuilder key = new StringBuilder();
+        predicateBuilder.appendShape(key);
+        for (OrderBy order: orderBy) {
+            key.append(order.getField()).append(order.isAsc() ? " ASC," : " DESC,");
+        }
+        joinPlan.appendShape(key);
+        return new QueryShape(entityClass, key.toString());
+    }
+
+    /**
+     * Returns a shape for a different selection over the same query, e.g. {@code "count"}, so it is cached
+     * separately from the entity query.
+     */
+    public QueryShape withSelection(String selection) {
+        return new QueryShape(entityClass, selection + ":" + key);
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QueryShape)) return false;
+        QueryShape that = (QueryShape) o;
+        return entityClass.equals(that.entityClass) && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * entityClass.hashCode() + key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return entityClass.getSimpleName() + ":" + key;
+    }
+}
@@ -0,0 +1,123 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Converts attribute values to and from a text form that round-trips exactly for the given attribute type, and
+ * numbers and dates to the exact type of the attribute they are compared with.
+ */
+public final class Values {
+
+    private Values() {
+    }
+
+    public static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) return type;
+        if (type == long.class) return Long.class;
+        if (type == int.class) return Integer.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        if (type == double.class) return Double.class;
+        if (type == float.class) return Float.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == char.class) return Character.class;
+        return type;
+    }
+
+    /**
+     * Converts a number to another number type or a date to another {@link Date} type, or returns null for
+     * other values and types.
+     *
+     * @throws ArithmeticException if the number does not fit {@code type} exactly
+     */
+    public static Object convert(Object value, Class<?> type) {
+        type = wrap(type);
+        if (type.isInstance(value)) return value;
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == Double.class) return number.doubleValue();
+            if (type == Float.class) return number.floatValue();
+            BigDecimal decimal = decimal(number);
+            if (type == BigDecimal.class) return decimal;
+            if (type == BigInteger.class) return decimal.toBigIntegerExact();
+            if (type == Long.class) return decimal.longValueExact();
+            if (type == Integer.class) return decimal.intValueExact();
+            if (type == Short.class) return decimal.shortValueExact();
+            if (type == Byte.class) return decimal.byteValueExact();
+        }
+        if (value instanceof Date) {
+            long time = ((Date) value).getTime();
+            if (type == Date.class) return new Date(time);
+            if (type == Timestamp.class) return new Timestamp(time);
+            if (type == java.sql.Date.class) return new java.sql.Date(time);
+            if (type == java.sql.Time.class) return new java.sql.Time(time);
+        }
+        return null;
+    }
+
+    private static BigDecimal decimal(Number number) {
+        if (number instanceof BigDecimal) return (BigDecimal) number;
+        if (number instanceof BigInteger) return new BigDecimal((BigInteger) number);
+        if (number instanceof Double || number instanceof Float) {
+            if (Double.isNaN(number.doubleValue()) || Double.isInfinite(number.doubleValue())) {
+                throw new ArithmeticException(number + " is not a finite number");
+            }
+            return new BigDecimal(number.toString());
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+
+    public static String format(Object value) {
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return Instant.ofEpochMilli(((Date) value).getTime())
+                    .plusNanos(value instanceof Timestamp ? ((Timestamp) value).getNanos() % 1000000 : 0)
+                    .toString();
+        }
+        return value.toString();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Object parse(String text, Class<?> type) {
+        type = wrap(type);
+        if (type == String.class) return text;
+        if (type == Long.class) return Long.valueOf(text);
+        if (type == Integer.class) return Integer.valueOf(text);
+        if (type == Short.class) return Short.valueOf(text);
+        if (type == Byte.class) return Byte.valueOf(text);
+        if (type == Double.class) return Double.valueOf(text);
+        if (type == Float.class) return Float.valueOf(text);
+        if (type == BigDecimal.class) return new BigDecimal(text);
+        if (type == BigInteger.class) return new BigInteger(text);
+        if (type == Boolean.class) return Boolean.valueOf(text);
+        if (type == Character.class && text.length() == 1) return text.charAt(0);
+        if (type.isEnum()) return Enum.valueOf((Class<Enum>) type, text);
+        if (type == java.sql.Date.class) return java.sql.Date.valueOf(text);
+        if (type == java.sql.Time.class) return java.sql.Time.valueOf(text);
+        if (type == Timestamp.class) return Timestamp.from(Instant.parse(text));
+        if (type == Date.class) return Timestamp.from(Instant.parse(text));
+        if (type == Instant.class) return Instant.parse(text);
+        if (type == LocalDate.class) return LocalDate.parse(text);
+        if (type == LocalDateTime.class) return LocalDateTime.parse(text);
+        if (type == LocalTime.class) return LocalTime.parse(text);
+        if (type == OffsetDateTime.class) return OffsetDateTime.parse(text);
+        if (type == ZonedDateTime.class) return ZonedDateTime.parse(text);
+        if (type == UUID.class) return UUID.fromString(text);
+        throw new IllegalArgumentException("Cannot convert '" + text + "' to " + type.getName());
+    }
+}
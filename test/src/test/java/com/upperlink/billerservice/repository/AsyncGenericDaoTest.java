@@ -0,0 +1,63 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncGenericDaoTest {
+    private static TestDatabase database;
+
+    @BeforeAll
+    static void open() {
+        database = new TestDatabase("async");
+    }
+
+    @AfterAll
+    static void close() {
+        database.close();
+    }
+
+    @Test
+    void countsInItsOwnTransaction() throws Exception {
+        try (AsyncGenericDao async = new AsyncGenericDao(database.dao, database.transactionManager, 2)) {
+            assertEquals(4L, async.getTotalNoOfModelObject(TestCustomer.class, new PredicateBuilder()).get()
+                    .longValue());
+        }
+    }
+
+    @Test
+    void callTimedOutWhileWaitingForPermitNeverRuns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        try (AsyncGenericDao async = new AsyncGenericDao(database.dao, database.transactionManager, 1)) {
+            CompletableFuture<Boolean> busy = async.submit(dao -> await(release), 5, TimeUnit.SECONDS);
+            CompletableFuture<Integer> waiting = async.submit(dao -> runs.incrementAndGet(), 50,
+                    TimeUnit.MILLISECONDS);
+            ExecutionException ex = assertThrows(ExecutionException.class, waiting::get);
+            assertInstanceOf(TimeoutException.class, ex.getCause());
+            release.countDown();
+            assertEquals(true, busy.get());
+            assertEquals(0, async.submit(dao -> runs.get()).get().intValue());
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkedWriteTest {
+    private TestDatabase database;
+
+    @BeforeEach
+    void open() {
+        database = new TestDatabase("chunked");
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    @Test
+    void deleteWalksEveryChunk() {
+        PredicateBuilder open = new PredicateBuilder().addPredicate(new CustomPredicate("status", "OPEN"));
+        assertEquals(2, database.dao.deleteUsingPredicateBuilder(TestInvoice.class, open, 1));
+        assertEquals(4L, (long) database.inTransaction(
+                () -> database.dao.getTotalNoOfModelObject(TestInvoice.class, new PredicateBuilder())));
+    }
+
+    @Test
+    void updateWalksEveryChunk() {
+        PredicateBuilder paid = new PredicateBuilder().addPredicate(new CustomPredicate("status", "PAID"));
+        assertEquals(4, database.dao.updateUsingPredicateBuilder(TestInvoice.class, paid,
+                Collections.<String, Object>singletonMap("status", "VOID"), 3));
+        PredicateBuilder voided = new PredicateBuilder().addPredicate(new CustomPredicate("status", "VOID"));
+        assertEquals(4L, (long) database.inTransaction(
+                () -> database.dao.getTotalNoOfModelObject(TestInvoice.class, voided)));
+    }
+
+    @Test
+    void nonPositiveChunkSizeIsRejected() {
+        PredicateBuilder all = new PredicateBuilder();
+        assertThrows(IllegalArgumentException.class,
+                () -> database.dao.deleteUsingPredicateBuilder(TestInvoice.class, all, 0));
+        assertThrows(IllegalArgumentException.class, () -> database.dao.updateUsingPredicateBuilder(
+                TestInvoice.class, all, Collections.<String, Object>singletonMap("status", "VOID"), -1));
+    }
+}
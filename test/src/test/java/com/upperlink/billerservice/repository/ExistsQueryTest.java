@@ -0,0 +1,120 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.ConjunctionType;
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.JoinPlan;
+import com.upperlink.billerservice.repository.predicate.Operation;
+import com.upperlink.billerservice.repository.predicate.OrderBy;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.criteria.JoinType;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExistsQueryTest {
+    private static final List<OrderBy> BY_ID = Collections.singletonList(new OrderBy("id"));
+
+    private static TestDatabase database;
+
+    @BeforeAll
+    static void open() {
+        database = new TestDatabase("exists");
+    }
+
+    @AfterAll
+    static void close() {
+        database.close();
+    }
+
+    @Test
+    void existsReturnsEachRootOnce() {
+        assertEquals("[Ada, Dayo]", load(PredicateBuilder.exists("invoices", invoices("PAID"))).toString());
+    }
+
+    @Test
+    void notExistsIncludesRootsWithoutElements() {
+        assertEquals("[Chidi, Dayo]", load(PredicateBuilder.notExists("invoices", invoices("OPEN"))).toString());
+    }
+
+    @Test
+    void notExistsOverImpossibleConditionMakesOrAlwaysTrue() {
+        PredicateBuilder impossible = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("amount", new BigDecimal("10"), Operation.GREATER))
+                .addPredicate(new CustomPredicate("amount", new BigDecimal("5"), Operation.LESS));
+        PredicateBuilder builder = new PredicateBuilder(ConjunctionType.OR)
+                .addPredicate(new CustomPredicate("tier", 3))
+                .addBuilder(PredicateBuilder.notExists("invoices", impossible));
+        assertEquals("[Ada, Bola, Chidi, Dayo]", load(builder).toString());
+    }
+
+    @Test
+    void fetchJoinReturnsEachRootOnceWithAllElements() {
+        database.statements();
+        List<TestCustomer> customers = database.inTransaction(() -> {
+            List<TestCustomer> loaded = database.dao.loadObjectsUsingPredicateBuilder(
+                    PredicateBuilder.exists("invoices", invoices("PAID")), TestCustomer.class, BY_ID,
+                    new JoinPlan().fetch("invoices", JoinType.LEFT));
+            assertEquals(3, loaded.get(0).getInvoices().size());
+            return loaded;
+        });
+        assertEquals("[Ada, Dayo]", customers.toString());
+        assertEquals(1, database.statements());
+    }
+
+    @Test
+    void batchFetchLoadsElementsInOneStatementPerBatch() {
+        database.statements();
+        database.inTransaction(() -> {
+            List<TestCustomer> customers = database.dao.loadObjectsUsingPredicateBuilder(new PredicateBuilder(),
+                    TestCustomer.class, BY_ID, new JoinPlan().batchFetch("invoices", 10));
+            for (TestCustomer customer: customers) {
+                assertTrue(Hibernate.isInitialized(customer.getInvoices()));
+            }
+            return null;
+        });
+        assertEquals(2, database.statements());
+    }
+
+    @Test
+    void bulkStatementsApplyExists() {
+        try (TestDatabase bulk = new TestDatabase("exists-bulk")) {
+            int updated = bulk.inTransaction(() -> bulk.dao.updateUsingPredicateBuilder(TestCustomer.class,
+                    PredicateBuilder.exists("invoices", invoices("OPEN")),
+                    Collections.<String, Object>singletonMap("status", "DUNNING")));
+            assertEquals(2, updated);
+            int deleted = bulk.inTransaction(() -> bulk.dao.deleteUsingPredicateBuilder(TestCustomer.class,
+                    PredicateBuilder.notExists("invoices", new PredicateBuilder())));
+            assertEquals(1, deleted);
+        }
+    }
+
+    @Test
+    void chunkedBulkStatementsApplyExists() {
+        try (TestDatabase bulk = new TestDatabase("exists-chunked")) {
+            long updated = bulk.dao.updateUsingPredicateBuilder(TestCustomer.class,
+                    PredicateBuilder.exists("invoices", invoices("PAID")),
+                    Collections.<String, Object>singletonMap("tier", 9), 1);
+            assertEquals(2, updated);
+            long deleted = bulk.dao.deleteUsingPredicateBuilder(TestCustomer.class,
+                    PredicateBuilder.notExists("invoices", new PredicateBuilder()), 1);
+            assertEquals(1, deleted);
+        }
+    }
+
+    private static List<TestCustomer> load(PredicateBuilder builder) {
+        return database.inTransaction(
+                () -> database.dao.loadObjectsUsingPredicateBuilder(builder, TestCustomer.class, BY_ID));
+    }
+
+    private static PredicateBuilder invoices(String status) {
+        return new PredicateBuilder().addPredicate(new CustomPredicate("status", status));
+    }
+}
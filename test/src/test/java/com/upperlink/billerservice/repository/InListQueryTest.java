@@ -0,0 +1,123 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.Operation;
+import com.upperlink.billerservice.repository.predicate.OrderBy;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IN lists loaded in chunks of two values, so the seed data spans several chunks.
+ */
+class InListQueryTest {
+    private static TestDatabase database;
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void open() {
+        database = new TestDatabase("inlists");
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    static void close() {
+        executor.shutdown();
+        database.close();
+    }
+
+    @AfterEach
+    void reset() {
+        database.dao.setInListOptions(new InListOptions());
+    }
+
+    @Test
+    void paddingIsOffByDefault() {
+        assertFalse(new InListOptions().isPadding());
+    }
+
+    @Test
+    void chunksArePaddedAndMergedInOrder() {
+        database.dao.setInListOptions(new InListOptions().setChunkThreshold(2).setChunkSize(2).setPadding(true));
+        database.statements();
+        List<TestCustomer> customers = database.inTransaction(() -> database.dao.loadObjectsUsingPredicateBuilder(
+                ids(4L, 3L, 2L, 1L, 99L), TestCustomer.class, Collections.singletonList(new OrderBy("id"))));
+        assertEquals("[Ada, Bola, Chidi, Dayo]", customers.toString());
+        assertEquals(3, database.statements());
+    }
+
+    @Test
+    void parallelChunksAreDetached() {
+        database.dao.setInListOptions(new InListOptions().setChunkThreshold(2).setChunkSize(2).setExecutor(executor));
+        boolean managed = database.inReadOnlyTransaction(() -> {
+            List<TestCustomer> customers = database.dao.loadObjectsUsingPredicateBuilder(
+                    ids(1L, 2L, 3L, 4L), TestCustomer.class);
+            assertEquals(4, customers.size());
+            return database.sessionFactory.getCurrentSession().contains(customers.get(0));
+        });
+        assertFalse(managed);
+    }
+
+    @Test
+    void parallelChunksOfCacheableClassAreCached() {
+        database.dao.setInListOptions(new InListOptions().setChunkThreshold(2).setChunkSize(2).setExecutor(executor));
+        database.dao.setResultCache(new QueryResultCache(10, 60000).cacheable(TestCustomer.class));
+        try {
+            for (int i = 0; i < 2; i++) {
+                assertEquals(4, database.inReadOnlyTransaction(() -> database.dao.loadObjectsUsingPredicateBuilder(
+                        ids(1L, 2L, 3L, 4L), TestCustomer.class)).size());
+            }
+            assertEquals(1, database.dao.getResultCache().getHitCount());
+        } finally {
+            database.dao.setResultCache(null);
+        }
+    }
+
+    @Test
+    void transactionStartedByTheDaoLoadsChunksInParallel() {
+        AtomicInteger tasks = new AtomicInteger();
+        database.dao.setInListOptions(new InListOptions().setChunkThreshold(2).setChunkSize(2)
+                .setExecutor(task -> {
+                    tasks.incrementAndGet();
+                    executor.execute(task);
+                }));
+        GenericDaoImpl dao = TestDatabase.transactional(database.dao, database.transactionManager);
+        assertEquals(4, dao.loadObjectsUsingPredicateBuilder(ids(1L, 2L, 3L, 4L), TestCustomer.class).size());
+        assertEquals(2, tasks.get());
+    }
+
+    @Test
+    void readWriteTransactionLoadsChunksInItsOwnSession() {
+        database.dao.setInListOptions(new InListOptions().setChunkThreshold(2).setChunkSize(2).setExecutor(executor));
+        database.inTransaction(() -> {
+            TestCustomer eze = new TestCustomer(5L, "Eze", "ACTIVE", 1);
+            database.sessionFactory.getCurrentSession().persist(eze);
+            List<TestCustomer> customers = database.dao.loadObjectsUsingPredicateBuilder(
+                    ids(1L, 2L, 3L, 4L, 5L), TestCustomer.class);
+            assertEquals(5, customers.size());
+            assertTrue(customers.contains(eze));
+            database.sessionFactory.getCurrentSession().delete(eze);
+            return null;
+        });
+    }
+
+    private static PredicateBuilder ids(Long first, Long... others) {
+        CustomPredicate in = new CustomPredicate("id", first, Operation.IN);
+        for (Long id: others) {
+            in.addOtherValue(id);
+        }
+        return new PredicateBuilder().addPredicate(in);
+    }
+}
@@ -0,0 +1,57 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.OrderBy;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetPageTest {
+    private static final List<OrderBy> BY_NAME = Collections.singletonList(new OrderBy("name"));
+    private static TestDatabase database;
+
+    @BeforeAll
+    static void open() {
+        database = new TestDatabase("keyset");
+    }
+
+    @AfterAll
+    static void close() {
+        database.close();
+    }
+
+    @Test
+    void continuationTokenSeeksToTheNextPage() {
+        KeysetPage<TestCustomer> first = database.inTransaction(() -> database.dao.loadKeysetPage(
+                new PredicateBuilder(), TestCustomer.class, BY_NAME, 3, null));
+        assertEquals("[Ada, Bola, Chidi]", first.getContent().toString());
+        assertTrue(first.hasNext());
+
+        KeysetPage<TestCustomer> second = database.inTransaction(() -> database.dao.loadKeysetPage(
+                new PredicateBuilder(), TestCustomer.class, BY_NAME, 3, first.getNextToken()));
+        assertEquals("[Dayo]", second.getContent().toString());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void largestPageSizeLoadsEveryRow() {
+        KeysetPage<TestCustomer> page = database.inTransaction(() -> database.dao.loadKeysetPage(
+                new PredicateBuilder(), TestCustomer.class, BY_NAME, Integer.MAX_VALUE, null));
+        assertEquals(4, page.getContent().size());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void nonPositivePageSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> database.dao.loadKeysetPage(
+                new PredicateBuilder(), TestCustomer.class, BY_NAME, 0, null));
+    }
+}
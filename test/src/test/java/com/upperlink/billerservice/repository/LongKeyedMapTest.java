@@ -0,0 +1,28 @@
+package com.upperlink.billerservice.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongKeyedMapTest {
+
+    @Test
+    void growsAndKeepsEveryEntry() {
+        LongKeyedMap<String> map = new LongKeyedMap<>();
+        for (long key = -500; key < 500; key++) {
+            map.put(key * 31, "v" + key);
+        }
+        assertEquals(1000, map.size());
+        assertEquals("v-500", map.get(-500 * 31));
+        assertEquals("v499", map.put(499 * 31, "w"));
+        assertEquals("w", map.get(499 * 31));
+        assertNull(map.get(1));
+    }
+
+    @Test
+    void rejectsSizesBeyondMaximumCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new LongKeyedMap<String>(Integer.MAX_VALUE));
+    }
+}
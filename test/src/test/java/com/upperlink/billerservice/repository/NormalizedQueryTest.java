@@ -0,0 +1,62 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.Operation;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Normalized trees against a case-insensitive database, where Java and SQL string comparison differ.
+ */
+class NormalizedQueryTest {
+    private static TestDatabase database;
+
+    @BeforeAll
+    static void open() {
+        database = new TestDatabase("normalized", ";IGNORECASE=TRUE");
+    }
+
+    @AfterAll
+    static void close() {
+        database.close();
+    }
+
+    @Test
+    void equalitiesDifferingInCaseMatchUnderCaseInsensitiveCollation() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("status", "ACTIVE"))
+                .addPredicate(new CustomPredicate("status", "active"));
+        List<TestCustomer> customers = database.inTransaction(
+                () -> database.dao.loadObjectsUsingPredicateBuilder(builder, TestCustomer.class));
+        assertEquals(2, customers.size());
+    }
+
+    @Test
+    void stringRangeIsEvaluatedByTheDatabase() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("name", "b", Operation.GREATER_OR_EQUAL))
+                .addPredicate(new CustomPredicate("name", "C", Operation.LESS));
+        List<TestCustomer> customers = database.inTransaction(
+                () -> database.dao.loadObjectsUsingPredicateBuilder(builder, TestCustomer.class));
+        assertEquals(1, customers.size());
+        assertEquals("Bola", customers.get(0).getName());
+    }
+
+    @Test
+    void numericContradictionRunsNoStatement() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("tier", 1))
+                .addPredicate(new CustomPredicate("tier", 3));
+        database.statements();
+        List<TestCustomer> customers = database.inTransaction(
+                () -> database.dao.loadObjectsUsingPredicateBuilder(builder, TestCustomer.class));
+        assertEquals(0, customers.size());
+        assertEquals(0, database.statements());
+    }
+}
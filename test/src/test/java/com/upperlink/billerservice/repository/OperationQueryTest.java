@@ -0,0 +1,115 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.Operation;
+import com.upperlink.billerservice.repository.predicate.OrderBy;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every operation, plain and negated, run against the database, checking the rows it returns.
+ */
+class OperationQueryTest {
+    private static TestDatabase database;
+
+    @BeforeAll
+    static void open() {
+        database = new TestDatabase("operations");
+    }
+
+    @AfterAll
+    static void close() {
+        database.close();
+    }
+
+    @Test
+    void equals() {
+        assertEquals("[Bola, Chidi]", names(new CustomPredicate("tier", 2, Operation.EQUALS)));
+        assertEquals("[Ada, Dayo]", names(new CustomPredicate("tier", 2, Operation.EQUALS, true)));
+    }
+
+    @Test
+    void equalsExact() {
+        assertEquals("[Ada]", names(new CustomPredicate("name", "Ada", Operation.EQUALS_EXACT)));
+        assertEquals("[Bola, Chidi, Dayo]", names(new CustomPredicate("name", "Ada", Operation.EQUALS_EXACT, true)));
+    }
+
+    @Test
+    void stringEquals() {
+        assertEquals("[Ada, Bola]", names(new CustomPredicate("status", "active", Operation.STRING_EQUALS)));
+        assertEquals("[Chidi, Dayo]", names(new CustomPredicate("status", "active", Operation.STRING_EQUALS, true)));
+    }
+
+    @Test
+    void less() {
+        assertEquals("[Ada]", names(new CustomPredicate("tier", 2, Operation.LESS)));
+        assertEquals("[Bola, Chidi, Dayo]", names(new CustomPredicate("tier", 2, Operation.LESS, true)));
+    }
+
+    @Test
+    void lessOrEqual() {
+        assertEquals("[Ada, Bola, Chidi]", names(new CustomPredicate("tier", 2, Operation.LESS_OR_EQUAL)));
+        assertEquals("[Dayo]", names(new CustomPredicate("tier", 2, Operation.LESS_OR_EQUAL, true)));
+    }
+
+    @Test
+    void greater() {
+        assertEquals("[Dayo]", names(new CustomPredicate("tier", 2, Operation.GREATER)));
+        assertEquals("[Ada, Bola, Chidi]", names(new CustomPredicate("tier", 2, Operation.GREATER, true)));
+    }
+
+    @Test
+    void greaterOrEqual() {
+        assertEquals("[Bola, Chidi, Dayo]", names(new CustomPredicate("tier", 2, Operation.GREATER_OR_EQUAL)));
+        assertEquals("[Ada]", names(new CustomPredicate("tier", 2, Operation.GREATER_OR_EQUAL, true)));
+    }
+
+    @Test
+    void between() {
+        assertEquals("[Bola, Chidi, Dayo]",
+                names(new CustomPredicate("tier", 2, Operation.BETWEEN).addOtherValue(3)));
+        assertEquals("[Ada]", names(new CustomPredicate("tier", 2, Operation.BETWEEN, true).addOtherValue(3)));
+    }
+
+    @Test
+    void in() {
+        assertEquals("[Ada, Dayo]", names(new CustomPredicate("tier", 1, Operation.IN).addOtherValue(3)));
+        assertEquals("[Bola, Chidi]", names(new CustomPredicate("tier", 1, Operation.IN, true).addOtherValue(3)));
+    }
+
+    @Test
+    void like() {
+        assertEquals("[Ada, Bola]", names(new CustomPredicate("name", "%a", Operation.LIKE)));
+        assertEquals("[Chidi, Dayo]", names(new CustomPredicate("name", "%a", Operation.LIKE, true)));
+    }
+
+    @Test
+    void startsWith() {
+        assertEquals("[Dayo]", names(new CustomPredicate("name", "d", Operation.STARTS_WITH)));
+        assertEquals("[Ada, Bola, Chidi]", names(new CustomPredicate("name", "d", Operation.STARTS_WITH, true)));
+    }
+
+    @Test
+    void endsWith() {
+        assertEquals("[Ada, Bola]", names(new CustomPredicate("name", "A", Operation.ENDS_WITH)));
+        assertEquals("[Chidi, Dayo]", names(new CustomPredicate("name", "A", Operation.ENDS_WITH, true)));
+    }
+
+    @Test
+    void contains() {
+        assertEquals("[Chidi]", names(new CustomPredicate("name", "hid", Operation.CONTAINS)));
+        assertEquals("[Ada, Bola, Dayo]", names(new CustomPredicate("name", "hid", Operation.CONTAINS, true)));
+    }
+
+    private static String names(CustomPredicate predicate) {
+        PredicateBuilder builder = new PredicateBuilder().addPredicate(predicate);
+        return database.inTransaction(() -> database.dao.loadObjectsUsingPredicateBuilder(builder,
+                TestCustomer.class, Collections.singletonList(new OrderBy("id")))).toString();
+    }
+}
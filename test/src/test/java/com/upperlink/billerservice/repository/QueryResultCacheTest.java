@@ -0,0 +1,53 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryResultCacheTest {
+    private static TestDatabase database;
+
+    @BeforeAll
+    static void open() {
+        database = new TestDatabase("result-cache");
+        database.dao.setResultCache(new QueryResultCache(100, 60000).cacheable(TestCustomer.class));
+    }
+
+    @AfterAll
+    static void close() {
+        database.close();
+    }
+
+    @Test
+    void resultsReadInRolledBackTransactionAreNotServed() {
+        new TransactionTemplate(database.transactionManager).execute(status -> {
+            database.dao.storeObject(new TestCustomer(2L, "Bola", "DORMANT", 2));
+            assertEquals("[Ada]", active().toString());
+            status.setRollbackOnly();
+            return null;
+        });
+        assertEquals("[Ada, Bola]", database.inTransaction(QueryResultCacheTest::active).toString());
+    }
+
+    @Test
+    void writesInvalidateCacheableSuperclasses() {
+        QueryResultCache cache = new QueryResultCache(10, 60000).cacheable(Number.class).cacheable(Integer.class);
+        long number = cache.generation(Number.class);
+        long string = cache.generation(String.class);
+        cache.invalidateHierarchy(Integer.class);
+        assertEquals(number + 1, cache.generation(Number.class));
+        assertEquals(string, cache.generation(String.class));
+    }
+
+    private static List<TestCustomer> active() {
+        return database.dao.loadObjectsUsingPredicateBuilder(new PredicateBuilder()
+                .addPredicate(new CustomPredicate("status", "ACTIVE")), TestCustomer.class);
+    }
+}
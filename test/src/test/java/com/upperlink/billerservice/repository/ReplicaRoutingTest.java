@@ -0,0 +1,127 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reads through a transactional proxy, as Spring wires the DAO, against a primary and a replica whose first
+ * customer has a different name.
+ */
+class ReplicaRoutingTest {
+    private static SessionFactory primary;
+    private static SessionFactory replica;
+    private static CountingTransactionManager transactionManager;
+    private static GenericDaoImpl routed;
+    private static GenericDaoImpl unrouted;
+
+    @BeforeAll
+    static void open() {
+        primary = TestDatabase.open("routing-primary", "");
+        replica = TestDatabase.open("routing-replica", "");
+        try (Session session = replica.openSession()) {
+            session.beginTransaction();
+            session.createQuery("update TestCustomer set name = 'Ada (replica)' where id = 1").executeUpdate();
+            session.getTransaction().commit();
+        }
+        transactionManager = new CountingTransactionManager(primary);
+        GenericDaoImpl dao = new GenericDaoImpl(primary);
+        dao.setReplicaRouting(new ReplicaRouting(replica));
+        routed = TestDatabase.transactional(dao, transactionManager);
+        unrouted = TestDatabase.transactional(new GenericDaoImpl(primary), transactionManager);
+    }
+
+    @AfterAll
+    static void close() {
+        replica.close();
+        primary.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        transactionManager.begun = 0;
+    }
+
+    @Test
+    void readOutsideTransactionStillStartsOne() {
+        assertEquals("Ada", firstName(unrouted));
+        assertEquals(1, transactionManager.begun);
+    }
+
+    @Test
+    void readOutsideTransactionGoesToReplica() {
+        assertEquals("Ada (replica)", firstName(routed));
+        assertEquals(1, transactionManager.begun);
+    }
+
+    @Test
+    void readInReadOnlyTransactionGoesToReplica() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        assertEquals("Ada (replica)", template.execute(status -> firstName(routed)));
+    }
+
+    @Test
+    void readInReadWriteTransactionStaysOnPrimary() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        assertEquals("Ada", template.execute(status -> firstName(routed)));
+    }
+
+    @Test
+    void readInNestedNewTransactionStaysOnPrimary() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        assertEquals("Ada", template.execute(status -> firstName(routed)));
+    }
+
+    @Test
+    void readFromPrimaryOverridesRouting() {
+        assertEquals("Ada", routed.readFromPrimary(() -> firstName(routed)));
+    }
+
+    @Test
+    void replicaReadsBypassResultCache() {
+        QueryResultCache cache = new QueryResultCache(10, 60000).cacheable(TestCustomer.class);
+        routed.setResultCache(cache);
+        try {
+            assertEquals("Ada (replica)", firstName(routed));
+            assertEquals(0, cache.size());
+            assertEquals("Ada", routed.readFromPrimary(() -> firstName(routed)));
+            assertEquals(1, cache.size());
+        } finally {
+            routed.setResultCache(null);
+        }
+    }
+
+    private static String firstName(GenericDaoImpl dao) {
+        List<TestCustomer> customers = dao.loadObjectsUsingPredicateBuilder(
+                new PredicateBuilder().addPredicate(new CustomPredicate("id", 1L)), TestCustomer.class);
+        return customers.get(0).getName();
+    }
+
+    private static class CountingTransactionManager extends HibernateTransactionManager {
+        int begun;
+
+        CountingTransactionManager(SessionFactory sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            begun++;
+            super.doBegin(transaction, definition);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.ConjunctionType;
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.Operation;
+import com.upperlink.billerservice.repository.predicate.OrderBy;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two H2 shards, the first holding customers 1 and 2 and the second customers 3 and 4.
+ */
+class ShardedQueryExecutorTest {
+    private static TestDatabase first;
+    private static TestDatabase second;
+    private static AsyncGenericDao firstShard;
+    private static AsyncGenericDao secondShard;
+    private static ShardedQueryExecutor executor;
+
+    @BeforeAll
+    static void open() {
+        first = shard("shard-0", 3, 4);
+        second = shard("shard-1", 1, 2);
+        firstShard = new AsyncGenericDao(first.dao, first.transactionManager, 2);
+        secondShard = new AsyncGenericDao(second.dao, second.transactionManager, 2);
+        executor = new ShardedQueryExecutor(Arrays.asList(firstShard, secondShard), "id",
+                key -> ((Long) key) <= 2 ? 0 : 1);
+    }
+
+    @AfterAll
+    static void close() {
+        firstShard.close();
+        secondShard.close();
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void pagesAreMergedInOrderAcrossShards() throws Exception {
+        List<TestCustomer> page = executor.loadObjectsUsingPredicateBuilder(new PredicateBuilder(),
+                TestCustomer.class, Collections.singletonList(new OrderBy("name", false)), 1, 2).get();
+        assertEquals("[Chidi, Bola]", page.toString());
+    }
+
+    @Test
+    void countsAndSumsAreAddedUp() throws Exception {
+        PredicateBuilder active = new PredicateBuilder().addPredicate(new CustomPredicate("tier", 2L,
+                Operation.GREATER_OR_EQUAL));
+        assertEquals(3L, executor.getTotalNoOfModelObject(TestCustomer.class, active).get().longValue());
+        assertEquals(8L, executor.sumFieldUsingPredicateBuilder(TestCustomer.class, new PredicateBuilder(),
+                Long.class, "tier").get().longValue());
+    }
+
+    @Test
+    void pinnedShardKeyPrunesShards() {
+        assertArrayEquals(new int[]{1}, executor.shardsFor(new PredicateBuilder()
+                .addPredicate(new CustomPredicate("id", 3L))));
+        assertArrayEquals(new int[]{0, 1}, executor.shardsFor(new PredicateBuilder()
+                .addPredicate(new CustomPredicate("id", 1L, Operation.IN).addOtherValue(4L))));
+        assertArrayEquals(new int[]{0, 1}, executor.shardsFor(new PredicateBuilder(ConjunctionType.OR)
+                .addPredicate(new CustomPredicate("id", 1L))
+                .addPredicate(new CustomPredicate("status", "ACTIVE"))));
+        assertArrayEquals(new int[0], executor.shardsFor(new PredicateBuilder()
+                .addPredicate(new CustomPredicate("id", 1L))
+                .addPredicate(new CustomPredicate("id", 3L))));
+    }
+
+    @Test
+    void mergeTakesEarlierListsFirstOnTies() {
+        List<String> merged = ShardedQueryExecutor.merge(Arrays.asList(Arrays.asList("a", "c", "e"),
+                Arrays.asList("b", "c", "d")), Comparator.<String>naturalOrder(), 1, 4);
+        assertEquals(Arrays.asList("b", "c", "c", "d"), merged);
+    }
+
+    @Test
+    void sumsKeepTheWidestType() {
+        assertEquals(new BigDecimal("3.5"), ShardedQueryExecutor.add(1L, new BigDecimal("2.5")));
+        assertEquals(5L, ShardedQueryExecutor.add(null, 5L));
+        assertEquals(3000000000L, ShardedQueryExecutor.add(1500000000L, 1500000000L));
+    }
+
+    @Test
+    void integerSumsAreWidenedBeforeAdding() {
+        assertEquals(2147483648L, ShardedQueryExecutor.add(Integer.MAX_VALUE, 1));
+    }
+
+    private static TestDatabase shard(String name, long... removed) {
+        TestDatabase database = new TestDatabase(name);
+        try (Session session = database.sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (long id: removed) {
+                session.createQuery("delete from TestInvoice where customer.id = :id").setParameter("id", id)
+                        .executeUpdate();
+                session.createQuery("delete from TestCustomer where id = :id").setParameter("id", id)
+                        .executeUpdate();
+            }
+            session.getTransaction().commit();
+        }
+        return database;
+    }
+}
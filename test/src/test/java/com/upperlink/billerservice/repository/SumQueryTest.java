@@ -0,0 +1,42 @@
+package com.upperlink.billerservice.repository;
+
+import com.upperlink.billerservice.repository.predicate.CustomPredicate;
+import com.upperlink.billerservice.repository.predicate.PredicateBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SumQueryTest {
+    private static TestDatabase database;
+
+    @BeforeAll
+    static void open() {
+        database = new TestDatabase("sums");
+    }
+
+    @AfterAll
+    static void close() {
+        database.close();
+    }
+
+    @Test
+    void sumsMatchingRows() {
+        PredicateBuilder builder = new PredicateBuilder().addPredicate(new CustomPredicate("status", "PAID"));
+        BigDecimal sum = database.inTransaction(() -> database.dao.sumFieldUsingPredicateBuilder(TestInvoice.class,
+                builder, BigDecimal.class, "amount", Collections.<String>emptyList()));
+        assertEquals(new BigDecimal("150.00"), sum);
+    }
+
+    @Test
+    void groupedSumIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> database.dao.sumFieldUsingPredicateBuilder(
+                TestInvoice.class, new PredicateBuilder(), BigDecimal.class, "amount",
+                Collections.singletonList("status")));
+    }
+}
@@ -0,0 +1,58 @@
+package com.upperlink.billerservice.repository;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderBy;
+import javax.persistence.Table;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "customer")
+public class TestCustomer {
+    @Id
+    private Long id;
+    private String name;
+    private String status;
+    private Integer tier;
+
+    @OneToMany(mappedBy = "customer")
+    @OrderBy("id")
+    private List<TestInvoice> invoices = new ArrayList<>();
+
+    public TestCustomer() {
+    }
+
+    public TestCustomer(Long id, String name, String status, Integer tier) {
+        this.id = id;
+        this.name = name;
+        this.status = status;
+        this.tier = tier;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Integer getTier() {
+        return tier;
+    }
+
+    public List<TestInvoice> getInvoices() {
+        return invoices;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,115 @@
+package com.upperlink.billerservice.repository;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.orm.hibernate5.LocalSessionFactoryBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory H2 database with four customers and their invoices, and a {@link GenericDaoImpl} over it. Calls
+ * run in Spring transactions, so the DAO reads through {@link SessionFactory#getCurrentSession()} as it does
+ * in the application.
+ * <pre>
+ *   1 Ada    ACTIVE   tier 1  invoices 10 PAID, 20 OPEN, 30 PAID
+ *   2 Bola   ACTIVE   tier 2  invoices 5 OPEN
+ *   3 Chidi  DORMANT  tier 2  no invoices
+ *   4 Dayo   CLOSED   tier 3  invoices 50 PAID, 60 PAID
+ * </pre>
+ */
+final class TestDatabase implements AutoCloseable {
+    final SessionFactory sessionFactory;
+    final HibernateTransactionManager transactionManager;
+    final GenericDaoImpl dao;
+
+    TestDatabase(String name) {
+        this(name, "");
+    }
+
+    /**
+     * @param options appended to the H2 URL, e.g. {@code ";IGNORECASE=TRUE"}
+     */
+    TestDatabase(String name, String options) {
+        sessionFactory = open(name, options);
+        transactionManager = new HibernateTransactionManager(sessionFactory);
+        dao = new GenericDaoImpl(sessionFactory);
+    }
+
+    static SessionFactory open(String name, String options) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1" + options);
+        LocalSessionFactoryBuilder builder = new LocalSessionFactoryBuilder(dataSource);
+        builder.addAnnotatedClasses(TestCustomer.class, TestInvoice.class);
+        builder.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        builder.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        builder.setProperty("hibernate.generate_statistics", "true");
+        builder.setProperty("hibernate.session.events.log", "false");
+        SessionFactory sessionFactory = builder.buildSessionFactory();
+        seed(sessionFactory);
+        return sessionFactory;
+    }
+
+    private static void seed(SessionFactory sessionFactory) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            TestCustomer ada = new TestCustomer(1L, "Ada", "ACTIVE", 1);
+            TestCustomer bola = new TestCustomer(2L, "Bola", "ACTIVE", 2);
+            TestCustomer chidi = new TestCustomer(3L, "Chidi", "DORMANT", 2);
+            TestCustomer dayo = new TestCustomer(4L, "Dayo", "CLOSED", 3);
+            for (TestCustomer customer: new TestCustomer[]{ada, bola, chidi, dayo}) {
+                session.persist(customer);
+            }
+            session.persist(new TestInvoice(11L, new BigDecimal("10.00"), "PAID", ada));
+            session.persist(new TestInvoice(12L, new BigDecimal("20.00"), "OPEN", ada));
+            session.persist(new TestInvoice(13L, new BigDecimal("30.00"), "PAID", ada));
+            session.persist(new TestInvoice(21L, new BigDecimal("5.00"), "OPEN", bola));
+            session.persist(new TestInvoice(41L, new BigDecimal("50.00"), "PAID", dayo));
+            session.persist(new TestInvoice(42L, new BigDecimal("60.00"), "PAID", dayo));
+            session.getTransaction().commit();
+        }
+    }
+
+    <R> R inTransaction(Supplier<R> call) {
+        return new TransactionTemplate(transactionManager).execute(status -> call.get());
+    }
+
+    <R> R inReadOnlyTransaction(Supplier<R> call) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template.execute(status -> call.get());
+    }
+
+    /**
+     * Wraps {@code dao} in a proxy applying its {@code @Transactional} annotations, as Spring wires it.
+     */
+    static GenericDaoImpl transactional(GenericDaoImpl dao, PlatformTransactionManager transactionManager) {
+        ProxyFactory factory = new ProxyFactory(dao);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        return (GenericDaoImpl) factory.getProxy();
+    }
+
+    /**
+     * The number of statements run since the last call.
+     */
+    long statements() {
+        long count = sessionFactory.getStatistics().getPrepareStatementCount();
+        sessionFactory.getStatistics().clear();
+        return count;
+    }
+
+    @Override
+    public void close() {
+        sessionFactory.close();
+    }
+}
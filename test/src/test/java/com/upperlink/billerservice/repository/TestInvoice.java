@@ -0,0 +1,46 @@
+package com.upperlink.billerservice.repository;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "invoice")
+public class TestInvoice {
+    @Id
+    private Long id;
+    private BigDecimal amount;
+    private String status;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private TestCustomer customer;
+
+    public TestInvoice() {
+    }
+
+    public TestInvoice(Long id, BigDecimal amount, String status, TestCustomer customer) {
+        this.id = id;
+        this.amount = amount;
+        this.status = status;
+        this.customer = customer;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public TestCustomer getCustomer() {
+        return customer;
+    }
+}
@@ -0,0 +1,98 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FieldPathRegistryTest {
+    private static SessionFactory sessionFactory;
+    private static FieldPathRegistry registry;
+
+    @BeforeAll
+    static void open() {
+        sessionFactory = new MetadataSources(new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", "false")
+                .build())
+                .addAnnotatedClass(Account.class)
+                .buildMetadata().buildSessionFactory();
+        registry = new FieldPathRegistry(sessionFactory.getMetamodel());
+    }
+
+    @AfterAll
+    static void close() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void valuesOfTheAttributeTypeAreKept() {
+        PredicateBuilder builder = new PredicateBuilder().addPredicate(new CustomPredicate("id", 1L));
+        assertSame(builder, registry.validate(Account.class, builder));
+    }
+
+    @Test
+    void numbersAreConvertedToTheAttributeType() {
+        CustomPredicate in = new CustomPredicate("id", 1, Operation.IN).addOtherValue(2).addOtherValue(3L);
+        PredicateBuilder validated = registry.validate(Account.class, new PredicateBuilder()
+                .addPredicate(in)
+                .addPredicate(new CustomPredicate("balance", 10, Operation.GREATER)));
+        CustomPredicate ids = validated.getPredicates().get(0);
+        assertEquals(1L, ids.getValue());
+        assertEquals(2L, ids.getOtherValues().get(0));
+        assertEquals(3L, ids.getOtherValues().get(1));
+        assertEquals(new BigDecimal("10"), validated.getPredicates().get(1).getValue());
+    }
+
+    @Test
+    void convertedTreesShareTheShapeOfExactOnes() {
+        StringBuilder converted = new StringBuilder();
+        registry.validate(Account.class, new PredicateBuilder().addPredicate(new CustomPredicate("id", 1)))
+                .appendShape(converted);
+        StringBuilder exact = new StringBuilder();
+        new PredicateBuilder().addPredicate(new CustomPredicate("id", 1L)).appendShape(exact);
+        assertEquals(exact.toString(), converted.toString());
+    }
+
+    @Test
+    void datesAreConvertedToTheAttributeType() {
+        PredicateBuilder validated = registry.validate(Account.class, new PredicateBuilder()
+                .addPredicate(new CustomPredicate("opened", new Date(1000), Operation.GREATER)));
+        assertEquals(Timestamp.class, validated.getPredicates().get(0).getValue().getClass());
+    }
+
+    @Test
+    void numbersThatDoNotFitAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> registry.validate(Account.class,
+                new PredicateBuilder().addPredicate(new CustomPredicate("id", 1.5))));
+        assertThrows(IllegalArgumentException.class, () -> registry.validate(Account.class,
+                new PredicateBuilder().addPredicate(new CustomPredicate("tier", Long.MAX_VALUE))));
+    }
+
+    @Test
+    void otherTypesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> registry.validate(Account.class,
+                new PredicateBuilder().addPredicate(new CustomPredicate("id", "1"))));
+    }
+
+    @Entity
+    static class Account {
+        @Id
+        Long id;
+        Integer tier;
+        BigDecimal balance;
+        Timestamp opened;
+    }
+}
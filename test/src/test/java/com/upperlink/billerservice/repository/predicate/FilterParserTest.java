@@ -0,0 +1,106 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FilterParserTest {
+    private static SessionFactory sessionFactory;
+    private static FilterParser parser;
+
+    @BeforeAll
+    static void open() {
+        sessionFactory = new MetadataSources(new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", "false")
+                .build())
+                .addAnnotatedClass(Payment.class)
+                .buildMetadata().buildSessionFactory();
+        parser = new FilterParser(new FieldPathRegistry(sessionFactory.getMetamodel()), 16);
+    }
+
+    @AfterAll
+    static void close() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        PredicateBuilder builder = new FilterParser().parse("amount>=100 AND status=PAID OR status=OPEN");
+        assertEquals(ConjunctionType.OR, builder.getConjunctionType());
+        assertEquals(1, builder.getBuilders().size());
+        PredicateBuilder and = builder.getBuilders().get(0);
+        assertEquals(new CustomPredicate("amount", 100L, Operation.GREATER_OR_EQUAL), and.getPredicates().get(0));
+        assertEquals(new CustomPredicate("status", "OPEN"), builder.getPredicates().get(0));
+    }
+
+    @Test
+    void valuesAreConvertedToTheAttributeType() {
+        PredicateBuilder builder = parser.parse(Payment.class,
+                "amount BETWEEN 1.50 AND 20 AND id IN (1, 2) AND due < 2024-03-01");
+        assertEquals(new BigDecimal("1.50"), builder.getPredicates().get(0).getValue());
+        assertEquals(new BigDecimal("20"), builder.getPredicates().get(0).getOtherValues().get(0));
+        assertEquals(2L, builder.getPredicates().get(1).getOtherValues().get(0));
+        assertEquals(LocalDate.of(2024, 3, 1), builder.getPredicates().get(2).getValue());
+    }
+
+    @Test
+    void printedTreesParseBackToEqualTrees() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("amount", new BigDecimal("100.00"), Operation.GREATER_OR_EQUAL))
+                .addPredicate(new CustomPredicate("reference", "say \"hi\" \\ (now)", Operation.CONTAINS))
+                .addPredicate(new CustomPredicate("status", "VOID", Operation.EQUALS, true))
+                .addPredicate(new CustomPredicate("paidAt", Timestamp.valueOf("2024-03-01 10:15:30.123456789"),
+                        Operation.LESS))
+                .addBuilder(new PredicateBuilder(ConjunctionType.OR)
+                        .addPredicate(new CustomPredicate("id", 1L, Operation.IN).addOtherValue(2L))
+                        .addPredicate(new CustomPredicate("reference", "A", Operation.STARTS_WITH, true)));
+        String text = FilterPrinter.print(builder);
+        PredicateBuilder parsed = parser.parse(Payment.class, text);
+        assertSameTree(builder, parsed);
+        assertEquals(text, FilterPrinter.print(parsed));
+    }
+
+    @Test
+    void syntaxErrorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new FilterParser().parse("amount >="));
+        assertThrows(IllegalArgumentException.class, () -> new FilterParser().parse("(status = PAID"));
+    }
+
+    @Test
+    void unknownFieldsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(Payment.class, "biller = X"));
+    }
+
+    private static void assertSameTree(PredicateBuilder expected, PredicateBuilder actual) {
+        assertEquals(expected.getConjunctionType(), actual.getConjunctionType());
+        assertEquals(expected.getPredicates(), actual.getPredicates());
+        assertEquals(expected.getBuilders().size(), actual.getBuilders().size());
+        for (int i = 0; i < expected.getBuilders().size(); i++) {
+            assertSameTree(expected.getBuilders().get(i), actual.getBuilders().get(i));
+        }
+    }
+
+    @Entity
+    static class Payment {
+        @Id
+        Long id;
+        BigDecimal amount;
+        String status;
+        String reference;
+        LocalDate due;
+        Timestamp paidAt;
+    }
+}
@@ -0,0 +1,61 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class InListsTest {
+
+    @Test
+    void padsToNextPowerOfTwoWithLastValue() {
+        CustomPredicate padded = InLists.pad(builder(in(5)), 1000).getPredicates().get(0);
+        assertEquals(7, padded.getOtherValues().size());
+        assertEquals(5L, padded.getOtherValues().get(6));
+    }
+
+    @Test
+    void paddingStopsAtLimit() {
+        CustomPredicate padded = InLists.pad(builder(in(600)), 1000).getPredicates().get(0);
+        assertEquals(1000, 1 + padded.getOtherValues().size());
+    }
+
+    @Test
+    void listsLongerThanLimitAreLeftAlone() {
+        PredicateBuilder builder = builder(in(1200));
+        assertSame(builder, InLists.pad(builder, 1000));
+    }
+
+    @Test
+    void splitsLargeTopLevelInIntoChunks() {
+        PredicateBuilder builder = builder(in(2500)).addPredicate(new CustomPredicate("status", "PAID"));
+        CustomPredicate in = InLists.findSplittable(builder, 1000);
+        List<PredicateBuilder> chunks = InLists.split(builder, in, 1000);
+        assertEquals(3, chunks.size());
+        assertEquals(500, 1 + chunks.get(2).getPredicates().get(0).getOtherValues().size());
+        assertEquals("PAID", chunks.get(2).getPredicates().get(1).getValue());
+    }
+
+    @Test
+    void inUnderOrIsNotSplit() {
+        PredicateBuilder builder = new PredicateBuilder(ConjunctionType.OR)
+                .addPredicate(in(2000))
+                .addPredicate(new CustomPredicate("status", "PAID"));
+        assertNull(InLists.findSplittable(builder, 1000));
+    }
+
+    private static PredicateBuilder builder(CustomPredicate in) {
+        return new PredicateBuilder().addPredicate(in);
+    }
+
+    private static CustomPredicate in(int size) {
+        CustomPredicate in = new CustomPredicate("id", 1L, Operation.IN);
+        for (long i = 2; i <= size; i++) {
+            in.addOtherValue(i);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,59 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JavaPredicateCompilerTest {
+
+    public static class Reading {
+        private final long count;
+        private final Double ratio;
+        private final BigDecimal amount;
+
+        Reading(long count, Double ratio, BigDecimal amount) {
+            this.count = count;
+            this.ratio = ratio;
+            this.amount = amount;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public Double getRatio() {
+            return ratio;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+    }
+
+    private static final Reading READING = new Reading(2L, 0.5, new BigDecimal("1.50"));
+
+    @Test
+    void nullInOperandsAreIgnored() {
+        assertTrue(matches(new CustomPredicate("count", 1.5, Operation.IN).addOtherValue(null).addOtherValue(2)));
+        assertTrue(matches(new CustomPredicate("ratio", null, Operation.IN).addOtherValue(0.5)));
+        assertTrue(matches(new CustomPredicate("amount", 1, Operation.IN).addOtherValue(null)
+                .addOtherValue(new BigDecimal("1.5"))));
+        assertFalse(matches(new CustomPredicate("amount", 1, Operation.IN).addOtherValue(null)));
+    }
+
+    @Test
+    void negatedInWithNullOperandMatchesOtherValues() {
+        assertTrue(matches(new CustomPredicate("ratio", 1.0, Operation.IN, true).addOtherValue(null)));
+        assertFalse(matches(new CustomPredicate("count", 2L, Operation.IN, true).addOtherValue(null)));
+    }
+
+    private static boolean matches(CustomPredicate predicate) {
+        Predicate<Reading> compiled = JavaPredicateCompiler.compile(new PredicateBuilder().addPredicate(predicate),
+                Reading.class);
+        return compiled.test(READING);
+    }
+}
@@ -0,0 +1,27 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PredicateBuilderTest {
+
+    @Test
+    void nullInOperandsAreLeftOutOfShapeAndValues() {
+        PredicateBuilder withNull = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("id", 1L, Operation.IN).addOtherValue(null).addOtherValue(2L));
+        PredicateBuilder withoutNull = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("id", 1L, Operation.IN).addOtherValue(2L));
+
+        assertEquals(QueryShape.of(Object.class, withoutNull, Collections.emptyList()),
+                QueryShape.of(Object.class, withNull, Collections.emptyList()));
+        List<Object> values = new ArrayList<>();
+        withNull.collectValues(values);
+        assertEquals(Arrays.asList(1L, 2L), values);
+    }
+}
@@ -0,0 +1,120 @@
+package com.upperlink.billerservice.repository.predicate;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PredicateNormalizerTest {
+
+    @Test
+    void contradictoryNumbersAreUnsatisfiable() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("tier", 1))
+                .addPredicate(new CustomPredicate("tier", 2L));
+        assertTrue(PredicateNormalizer.normalize(builder).isUnsatisfiable());
+    }
+
+    @Test
+    void numericRangesCollapseIntoBetween() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("amount", new BigDecimal("5"), Operation.GREATER_OR_EQUAL))
+                .addPredicate(new CustomPredicate("amount", 10, Operation.GREATER_OR_EQUAL))
+                .addPredicate(new CustomPredicate("amount", 50, Operation.LESS_OR_EQUAL));
+        PredicateBuilder normalized = PredicateNormalizer.normalize(builder);
+        assertEquals(1, normalized.getPredicates().size());
+        CustomPredicate between = normalized.getPredicates().get(0);
+        assertEquals(Operation.BETWEEN, between.getOperation());
+        assertEquals(10, between.getValue());
+        assertEquals(50, between.getOtherValues().get(0));
+    }
+
+    @Test
+    void emptyDateRangeIsUnsatisfiable() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("issued", new Date(2000), Operation.GREATER))
+                .addPredicate(new CustomPredicate("issued", new Date(1000), Operation.LESS));
+        assertTrue(PredicateNormalizer.normalize(builder).isUnsatisfiable());
+    }
+
+    @Test
+    void stringEqualitiesAreLeftToTheDatabase() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("status", "PAID"))
+                .addPredicate(new CustomPredicate("status", "paid"));
+        PredicateBuilder normalized = PredicateNormalizer.normalize(builder);
+        assertFalse(normalized.isUnsatisfiable());
+        assertEquals(2, normalized.getPredicates().size());
+    }
+
+    @Test
+    void stringRangesAreNotCollapsed() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("name", "b", Operation.GREATER))
+                .addPredicate(new CustomPredicate("name", "B", Operation.LESS));
+        PredicateBuilder normalized = PredicateNormalizer.normalize(builder);
+        assertFalse(normalized.isUnsatisfiable());
+        assertEquals(2, normalized.getPredicates().size());
+    }
+
+    @Test
+    void stringEqualitiesUnderOrBecomeOneIn() {
+        PredicateBuilder builder = new PredicateBuilder(ConjunctionType.OR)
+                .addPredicate(new CustomPredicate("status", "PAID"))
+                .addPredicate(new CustomPredicate("status", "OPEN"))
+                .addPredicate(new CustomPredicate("status", "PAID"));
+        PredicateBuilder normalized = PredicateNormalizer.normalize(builder);
+        assertEquals(1, normalized.getPredicates().size());
+        assertEquals(Operation.IN, normalized.getPredicates().get(0).getOperation());
+        assertEquals(1, normalized.getPredicates().get(0).getOtherValues().size());
+    }
+
+    @Test
+    void duplicatesAreRemovedAndNestedGroupsFlattened() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("name", "Ada", Operation.LIKE))
+                .addBuilder(new PredicateBuilder().addPredicate(new CustomPredicate("name", "Ada", Operation.LIKE)))
+                .addBuilder(new PredicateBuilder());
+        PredicateBuilder normalized = PredicateNormalizer.normalize(builder);
+        assertTrue(normalized.getBuilders().isEmpty());
+        assertEquals(1, normalized.getPredicates().size());
+    }
+
+    @Test
+    void alwaysTrueNotExistsMakesOrAlwaysTrue() {
+        PredicateBuilder builder = new PredicateBuilder(ConjunctionType.OR)
+                .addPredicate(new CustomPredicate("tier", 3))
+                .addBuilder(PredicateBuilder.notExists("invoices", impossible()));
+        assertTrue(PredicateNormalizer.normalize(builder).isEmpty());
+    }
+
+    @Test
+    void alwaysTrueNotExistsOutweighsUnsatisfiableSibling() {
+        PredicateBuilder builder = new PredicateBuilder(ConjunctionType.OR)
+                .addBuilder(impossible())
+                .addBuilder(PredicateBuilder.notExists("invoices", impossible()));
+        PredicateBuilder normalized = PredicateNormalizer.normalize(builder);
+        assertFalse(normalized.isUnsatisfiable());
+        assertTrue(normalized.isEmpty());
+    }
+
+    @Test
+    void alwaysTrueNotExistsIsDroppedUnderAnd() {
+        PredicateBuilder builder = new PredicateBuilder()
+                .addPredicate(new CustomPredicate("tier", 3))
+                .addBuilder(PredicateBuilder.notExists("invoices", impossible()));
+        PredicateBuilder normalized = PredicateNormalizer.normalize(builder);
+        assertEquals(1, normalized.getPredicates().size());
+        assertTrue(normalized.getBuilders().isEmpty());
+    }
+
+    private static PredicateBuilder impossible() {
+        return new PredicateBuilder()
+                .addPredicate(new CustomPredicate("amount", 10, Operation.GREATER))
+                .addPredicate(new CustomPredicate("amount", 5, Operation.LESS));
+    }
+}